@@ -1,5 +1,5 @@
 import event.EventManager;
-import event.impl.EventManagerImpl;
+import event.AbstractEventManager;
 import filters.Filter;
 import filters.FilterManager;
 import observors.Observer;
@@ -23,7 +23,7 @@ public class Main {
         // 设置过滤器链
         Filter firstFilter = springContext.getBean("firstFilter");
         FilterManager.getInstance().setFirstFilter(firstFilter);
-        EventManager eventManager = EventManagerImpl.getInstance();
+        EventManager eventManager = springContext.getBean("eventManager");
         Observer observer=springContext.getBean("httpEventObserver");
         eventManager.registerListener(EventType.HTTPEVENT, observer::handle);
 
@@ -35,20 +35,21 @@ public class Main {
         server.start();
         
         // 等待服务器运行
-        waitForServer(server);
+        waitForServer(server, eventManager);
     }
 
     /**
      * 等待服务器运行
      */
-    private static void waitForServer(Server server) {
+    private static void waitForServer(Server server, EventManager eventManager) {
         // 添加关闭钩子，优雅停止服务器
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("\n=== 服务器正在停止 ===");
             server.stop();
             // 关闭事件管理器的线程池
-            EventManagerImpl eventManager = EventManagerImpl.getInstance();
-            eventManager.shutdown();
+            if (eventManager instanceof AbstractEventManager) {
+                ((AbstractEventManager) eventManager).shutdown();
+            }
             System.out.println("事件管理器线程池已关闭");
         }));
 
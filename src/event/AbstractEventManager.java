@@ -1,27 +1,59 @@
 package event;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 抽象事件管理器类，提供EventManager接口的默认实现
  */
 public abstract class AbstractEventManager implements EventManager {
-    private final Map<EventType, List<EventListener>> listeners = new HashMap<>();
+    private static final EventListener[] NO_LISTENERS = new EventListener[0];
+    // 内置过载策略的简称及其实现类名，按类名加载，抽象层不依赖具体实现
+    private static final Map<String, String> OVERLOAD_POLICY_CLASSES = new HashMap<>();
+
+    static {
+        OVERLOAD_POLICY_CLASSES.put("reject", "event.impl.RejectOverloadPolicy");
+        OVERLOAD_POLICY_CLASSES.put("caller-runs", "event.impl.CallerRunsOverloadPolicy");
+        OVERLOAD_POLICY_CLASSES.put("pause-read", "event.impl.PauseReadOverloadPolicy");
+    }
+
+    // 监听器快照：按事件类型索引的监听器数组，发布后不再修改。注册和移除时复制出新快照再整体替换，
+    // 触发事件时直接读取当前快照，无需加锁也不产生分配
+    private volatile EnumMap<EventType, EventListener[]> listeners = new EnumMap<>(EventType.class);
+    private volatile EventDispatcher dispatcher;
+    // 通过构造函数传入的自定义线程池，没有时为null
     private final ExecutorService threadPool;
+    // 分发模式：pool（共享线程池，任意空闲线程处理）、sharded（按连接哈希到固定的单线程通道，同一连接的事件按顺序处理）
+    // 或 priority（按优先级类别分队列，加权公平调度）
+    private String dispatchMode = "pool";
+    // 分发线程池配置：核心线程数、最大线程数、有界队列容量、空闲线程存活时间（秒）
+    private int corePoolSize = Runtime.getRuntime().availableProcessors();
+    private int maxPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+    private int queueCapacity = 1024;
+    private long keepAliveSeconds = 60;
+    // sharded模式的通道数，队列容量平均分配到各个通道
+    private int laneCount = Runtime.getRuntime().availableProcessors();
+    // priority模式的优先级类别及权重，格式：类别:权重，未识别的类别归入分类器的默认类别
+    private String priorityClasses = "critical:8,normal:4,batch:1";
+    // priority模式的优先级分类器
+    private PriorityClassifier priorityClassifier;
+    // 过载策略：reject（快速返回503）、caller-runs（调用者执行）、pause-read（暂停读取），或自定义策略的类名
+    private String overloadPolicy = "pause-read";
+    private volatile OverloadPolicy overloadPolicyInstance;
+    // 因队列已满被拒绝的任务数
+    private final AtomicLong rejectedCount = new AtomicLong();
     
     /**
-     * 默认构造函数，创建具有合理默认配置的线程池
+     * 默认构造函数，分发线程池在首次触发事件时按配置创建
      */
     public AbstractEventManager() {
-        // 创建线程池：核心线程数为CPU核心数，最大线程数为CPU核心数*2，工作队列大小为100
-        int corePoolSize = Runtime.getRuntime().availableProcessors();
-        this.threadPool = Executors.newFixedThreadPool(corePoolSize);
+        this.threadPool = null;
     }
     
     /**
@@ -31,14 +63,91 @@ public abstract class AbstractEventManager implements EventManager {
     public AbstractEventManager(ExecutorService threadPool) {
         this.threadPool = threadPool;
     }
+
+    /**
+     * 获取事件分发器，首次调用时按分发模式创建，使配置文件注入的参数生效
+     */
+    protected EventDispatcher getDispatcher() {
+        EventDispatcher current = dispatcher;
+        if (current == null) {
+            synchronized (this) {
+                if (dispatcher == null) {
+                    dispatcher = createDispatcher();
+                }
+                current = dispatcher;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 创建有界的事件分发器，队列已满时由过载策略处理，任务执行完毕后通知过载策略
+     */
+    private EventDispatcher createDispatcher() {
+        OverloadPolicy policy = getOverloadPolicyInstance();
+        return createDispatcher(() -> policy.capacityAvailable(this));
+    }
+
+    /**
+     * 按分发模式创建事件分发器，由具体的事件管理器提供分发器的实现
+     * @param afterTask 每个任务执行完毕后的回调
+     * @return 事件分发器
+     */
+    protected abstract EventDispatcher createDispatcher(Runnable afterTask);
+
+    /**
+     * 获取过载策略，首次调用时根据配置创建
+     */
+    protected OverloadPolicy getOverloadPolicyInstance() {
+        OverloadPolicy policy = overloadPolicyInstance;
+        if (policy == null) {
+            synchronized (this) {
+                if (overloadPolicyInstance == null) {
+                    overloadPolicyInstance = createOverloadPolicy(overloadPolicy);
+                }
+                policy = overloadPolicyInstance;
+            }
+        }
+        return policy;
+    }
+
+    /**
+     * 按名称创建过载策略，内置策略的简称先换成类名，其他名称当作自定义策略的类名
+     * @param name 过载策略名称
+     * @return 过载策略
+     */
+    protected OverloadPolicy createOverloadPolicy(String name) {
+        try {
+            String className = OVERLOAD_POLICY_CLASSES.getOrDefault(name, name);
+            return (OverloadPolicy) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Unknown overload policy: " + name, e);
+        }
+    }
+
+    /**
+     * 尝试提交事件处理任务
+     * @param event 事件，sharded模式下据此选择通道
+     * @param task 任务
+     * @return 队列已满无法提交时返回false
+     */
+    public boolean tryExecute(Event event, Runnable task) {
+        return getDispatcher().tryDispatch(event, task);
+    }
     
     @Override
     public void registerListener(EventType eventType, EventListener listener) {
         if (eventType == null || listener == null) {
             throw new IllegalArgumentException("Event type and listener cannot be null");
         }
-        listeners.computeIfAbsent(eventType, k -> new ArrayList<>()).add(listener);
-
+        synchronized (this) {
+            EventListener[] current = getListeners(eventType);
+            EventListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            EnumMap<EventType, EventListener[]> snapshot = new EnumMap<>(listeners);
+            snapshot.put(eventType, updated);
+            listeners = snapshot;
+        }
     }
     
     @Override
@@ -47,12 +156,22 @@ public abstract class AbstractEventManager implements EventManager {
             return;
         }
         
-        List<EventListener> eventListeners = listeners.get(eventType);
-        if (eventListeners != null) {
-            eventListeners.remove(listener);
-            if (eventListeners.isEmpty()) {
-                listeners.remove(eventType);
+        synchronized (this) {
+            EventListener[] current = getListeners(eventType);
+            int index = Arrays.asList(current).indexOf(listener);
+            if (index < 0) {
+                return;
+            }
+            EventListener[] updated = new EventListener[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            EnumMap<EventType, EventListener[]> snapshot = new EnumMap<>(listeners);
+            if (updated.length == 0) {
+                snapshot.remove(eventType);
+            } else {
+                snapshot.put(eventType, updated);
             }
+            listeners = snapshot;
         }
     }
     
@@ -61,21 +180,32 @@ public abstract class AbstractEventManager implements EventManager {
         if (event == null) {
             throw new IllegalArgumentException("Event cannot be null");
         }
-        List<EventListener> eventListeners = listeners.get(event.getEventType());
-        if (eventListeners != null) {
-            for (EventListener listener : new ArrayList<>(eventListeners)) {
-                // 将事件处理任务提交给线程池
-                threadPool.execute(() -> {
-                    try {
-                        listener.onEvent(event);
-                    } catch (Exception e) {
-                        handleListenerException(e, listener, event);
-                    }
-                });
+        for (EventListener listener : getListeners(event.getEventType())) {
+            Runnable task = () -> {
+                try {
+                    listener.onEvent(event);
+                } catch (Exception e) {
+                    handleListenerException(e, listener, event);
+                }
+            };
+            // 将事件处理任务提交给线程池，队列已满时交给过载策略
+            if (!tryExecute(event, task)) {
+                rejectedCount.incrementAndGet();
+                getOverloadPolicyInstance().rejected(event, task, this);
             }
         }
     }
     
+    /**
+     * 获取指定事件类型的监听器快照，调用者不能修改返回的数组
+     * @param eventType 事件类型
+     * @return 监听器数组，没有监听器时返回空数组
+     */
+    protected EventListener[] getListeners(EventType eventType) {
+        EventListener[] eventListeners = listeners.get(eventType);
+        return eventListeners != null ? eventListeners : NO_LISTENERS;
+    }
+
     /**
      * 处理监听器异常的方法，子类可以重写以提供自定义处理
      * @param e 异常
@@ -92,9 +222,8 @@ public abstract class AbstractEventManager implements EventManager {
      * @param eventType 事件类型
      * @return 监听器数量
      */
-    protected int getListenerCount(String eventType) {
-        List<EventListener> eventListeners = listeners.get(eventType);
-        return eventListeners != null ? eventListeners.size() : 0;
+    protected int getListenerCount(EventType eventType) {
+        return getListeners(eventType).length;
     }
     
     /**
@@ -109,8 +238,9 @@ public abstract class AbstractEventManager implements EventManager {
      * 关闭线程池，释放资源
      */
     public void shutdown() {
-        if (threadPool != null && !threadPool.isShutdown()) {
-            threadPool.shutdown();
+        EventDispatcher current = this.dispatcher;
+        if (current != null && !current.isShutdown()) {
+            current.shutdown();
         }
     }
     
@@ -118,8 +248,9 @@ public abstract class AbstractEventManager implements EventManager {
      * 立即关闭线程池，停止所有正在执行的任务
      */
     public void shutdownNow() {
-        if (threadPool != null && !threadPool.isShutdown()) {
-            threadPool.shutdownNow();
+        EventDispatcher current = this.dispatcher;
+        if (current != null && !current.isShutdown()) {
+            current.shutdownNow();
         }
     }
     
@@ -128,15 +259,98 @@ public abstract class AbstractEventManager implements EventManager {
      * @return 线程池信息字符串
      */
     public String getThreadPoolInfo() {
-        if (threadPool instanceof ThreadPoolExecutor) {
-            ThreadPoolExecutor tpe = (ThreadPoolExecutor) threadPool;
-            return String.format("线程池信息: 核心线程数=%d, 最大线程数=%d, 当前线程数=%d, 任务队列大小=%d, 已完成任务数=%d",
-                    tpe.getCorePoolSize(),
-                    tpe.getMaximumPoolSize(),
-                    tpe.getPoolSize(),
-                    tpe.getQueue().size(),
-                    tpe.getCompletedTaskCount());
-        }
-        return "线程池信息: " + threadPool.toString();
+        return String.format("线程池信息: 分发模式=%s, %s, 过载策略=%s, 拒绝次数=%d, 暂存任务数=%d",
+                dispatchMode,
+                getDispatcher().getInfo(),
+                overloadPolicy,
+                rejectedCount.get(),
+                getOverloadPolicyInstance().getDeferredCount());
+    }
+
+    /**
+     * 获取通过构造函数传入的自定义线程池
+     * @return 自定义线程池，没有时返回null
+     */
+    protected ExecutorService getThreadPool() {
+        return threadPool;
+    }
+
+    /**
+     * 获取因队列已满被拒绝的任务数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public void setKeepAliveSeconds(long keepAliveSeconds) {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    public String getDispatchMode() {
+        return dispatchMode;
+    }
+
+    public void setDispatchMode(String dispatchMode) {
+        this.dispatchMode = dispatchMode;
+    }
+
+    public int getLaneCount() {
+        return laneCount;
+    }
+
+    public void setLaneCount(int laneCount) {
+        this.laneCount = laneCount;
+    }
+
+    public String getPriorityClasses() {
+        return priorityClasses;
+    }
+
+    public void setPriorityClasses(String priorityClasses) {
+        this.priorityClasses = priorityClasses;
+    }
+
+    public PriorityClassifier getPriorityClassifier() {
+        return priorityClassifier;
+    }
+
+    public void setPriorityClassifier(PriorityClassifier priorityClassifier) {
+        this.priorityClassifier = priorityClassifier;
+    }
+
+    public String getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    public void setOverloadPolicy(String overloadPolicy) {
+        this.overloadPolicy = overloadPolicy;
     }
 }
\ No newline at end of file
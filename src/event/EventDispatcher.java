@@ -0,0 +1,32 @@
+package event;
+
+/**
+ * 事件分发器接口，负责把事件处理任务交给工作线程执行
+ */
+public interface EventDispatcher {
+    /**
+     * 提交事件处理任务
+     * @param event 事件
+     * @param task 事件处理任务
+     * @return 队列已满无法提交时返回false
+     */
+    boolean tryDispatch(Event event, Runnable task);
+
+    /**
+     * 停止接收任务，已提交的任务继续执行
+     */
+    void shutdown();
+
+    /**
+     * 立即停止，中断正在执行的任务
+     */
+    void shutdownNow();
+
+    boolean isShutdown();
+
+    /**
+     * 获取分发器状态信息
+     * @return 状态信息字符串
+     */
+    String getInfo();
+}
@@ -1,19 +1,31 @@
 package event;
 
-import java.net.Socket;
-import java.nio.channels.SocketChannel;
+import http.HttpRequest;
 
 public class HttpEvent extends AbstractEvent {
     private String requestData;
-    //private SocketChannel clientChannel;
+    // 已在I/O线程完成解析的请求，为null时由观察者根据requestData创建
+    private HttpRequest request;
 
     public HttpEvent(String requestData,Object source) {
         super(source,EventType.HTTPEVENT);
         this.requestData = requestData;
     }
 
+    public HttpEvent(HttpRequest request, Object source) {
+        super(source, EventType.HTTPEVENT);
+        this.request = request;
+    }
+
     public String getRequestData() {
+        if (requestData == null && request != null) {
+            return request.getRequestData();
+        }
         return requestData;
     }
 
+    public HttpRequest getRequest() {
+        return request;
+    }
+
 }
\ No newline at end of file
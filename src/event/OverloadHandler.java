@@ -0,0 +1,22 @@
+package event;
+
+/**
+ * 支持过载处理的事件源，例如客户端连接
+ */
+public interface OverloadHandler {
+    /**
+     * 事件因过载被拒绝，直接返回快速失败响应（如503）
+     * @param event 被拒绝的事件
+     */
+    void rejectOverloaded(Event event);
+
+    /**
+     * 暂停接收新的事件，例如暂停读取连接
+     */
+    void pauseInput();
+
+    /**
+     * 恢复接收新的事件
+     */
+    void resumeInput();
+}
@@ -0,0 +1,28 @@
+package event;
+
+/**
+ * 过载策略接口，事件分发队列已满时决定如何处理新事件
+ */
+public interface OverloadPolicy {
+    /**
+     * 分发队列已满，无法提交事件处理任务时调用
+     * @param event 事件
+     * @param task 事件处理任务
+     * @param eventManager 事件管理器
+     */
+    void rejected(Event event, Runnable task, AbstractEventManager eventManager);
+
+    /**
+     * 有任务执行完毕、分发队列可能出现空位时调用
+     * @param eventManager 事件管理器
+     */
+    default void capacityAvailable(AbstractEventManager eventManager) {
+    }
+
+    /**
+     * 获取等待重新提交的任务数
+     */
+    default int getDeferredCount() {
+        return 0;
+    }
+}
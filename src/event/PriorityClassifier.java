@@ -0,0 +1,21 @@
+package event;
+
+/**
+ * 优先级分类器接口，决定事件进入哪个优先级类别的队列
+ */
+public interface PriorityClassifier {
+    /**
+     * 对事件分类
+     * @param event 事件
+     * @return 优先级类别名称，返回null或未配置的类别时归入默认类别
+     */
+    String classify(Event event);
+
+    /**
+     * 获取默认类别，分类结果为null或未配置的类别时使用
+     * @return 默认类别名称，返回null时使用最后一个类别
+     */
+    default String getDefaultClass() {
+        return null;
+    }
+}
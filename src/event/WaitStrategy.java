@@ -0,0 +1,12 @@
+package event;
+
+/**
+ * 等待策略接口，环形缓冲区的消费者没有可处理的事件时调用
+ */
+public interface WaitStrategy {
+    /**
+     * 等待一次
+     * @param counter 本次连续等待的次数，从0开始，可据此逐级退让
+     */
+    void idle(int counter);
+}
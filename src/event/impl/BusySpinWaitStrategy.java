@@ -0,0 +1,13 @@
+package event.impl;
+
+import event.WaitStrategy;
+
+/**
+ * 忙等策略：不让出CPU，延迟最低，但每个消费者线程独占一个CPU核心
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+    @Override
+    public void idle(int counter) {
+        // 空转
+    }
+}
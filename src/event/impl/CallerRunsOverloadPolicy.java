@@ -0,0 +1,9 @@
+package event.impl;
+
+/**
+ * 调用者执行策略：过载时在触发事件的线程中直接处理，触发线程处理期间无法产生新事件，从而形成反压
+ * 连接（OverloadHandler）的事件由事件循环触发，Servlet读取流式请求体或等待写出时会阻塞事件循环，
+ * 而请求体和响应数据又只能由事件循环读写，两者互相等待，因此这类事件改为暂停读取
+ */
+public class CallerRunsOverloadPolicy extends PauseReadOverloadPolicy {
+}
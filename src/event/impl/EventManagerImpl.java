@@ -1,6 +1,7 @@
 package event.impl;
 
 import event.AbstractEventManager;
+import event.EventDispatcher;
 import event.EventListener;
 import event.EventType;
 
@@ -26,4 +27,28 @@ public class EventManagerImpl extends AbstractEventManager {
     public void removeListener(EventType eventType, EventListener listener) {
         super.removeListener(eventType, listener);
     }
+
+    /**
+     * 按分发模式创建事件分发器：pool、sharded或priority；构造时传入了线程池则直接使用该线程池
+     */
+    @Override
+    protected EventDispatcher createDispatcher(Runnable afterTask) {
+        if (getThreadPool() != null) {
+            return new PooledEventDispatcher(getThreadPool());
+        }
+        switch (getDispatchMode()) {
+            case "pool":
+                return new PooledEventDispatcher(PooledEventDispatcher.createExecutor(getCorePoolSize(), getMaxPoolSize(),
+                        getKeepAliveSeconds(), getQueueCapacity(), "EventDispatcher", afterTask));
+            case "sharded":
+                return new ShardedEventDispatcher(getLaneCount(), getQueueCapacity() / Math.max(1, getLaneCount()), afterTask);
+            case "priority":
+                // 每个优先级类别各自拥有queueCapacity大小的队列，工作线程数取corePoolSize
+                return new PriorityEventDispatcher(getPriorityClasses(),
+                        getPriorityClassifier() != null ? getPriorityClassifier() : new RequestPriorityClassifier(),
+                        getCorePoolSize(), getQueueCapacity(), afterTask);
+            default:
+                throw new IllegalArgumentException("Unknown dispatch mode: " + getDispatchMode());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package event.impl;
+
+import event.WaitStrategy;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 休眠策略：依次空转、让出CPU，仍没有事件时短暂休眠，空闲时几乎不占用CPU
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private final long parkNanos;
+
+    public ParkingWaitStrategy() {
+        this(100_000);
+    }
+
+    /**
+     * @param parkNanos 每次休眠的时间（纳秒）
+     */
+    public ParkingWaitStrategy(long parkNanos) {
+        this.parkNanos = parkNanos;
+    }
+
+    @Override
+    public void idle(int counter) {
+        if (counter < SPIN_TRIES) {
+            return;
+        }
+        if (counter < YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(parkNanos);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package event.impl;
+
+import event.AbstractEventManager;
+import event.Event;
+import event.OverloadHandler;
+import event.OverloadPolicy;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 暂停读取策略：过载时暂停事件源的读取，任务暂存到分发队列出现空位后再提交，之后恢复读取
+ * 暂存的任务数受连接数限制，不会无限增长；事件源不支持过载处理时在调用者线程中执行
+ */
+public class PauseReadOverloadPolicy implements OverloadPolicy {
+    private final Deque<DeferredTask> deferredTasks = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger deferredCount = new AtomicInteger();
+    // 尚未处理的空位通知数，不为0时已有线程在提交暂存任务
+    private final AtomicInteger signals = new AtomicInteger();
+
+    @Override
+    public void rejected(Event event, Runnable task, AbstractEventManager eventManager) {
+        if (!(event.getSource() instanceof OverloadHandler)) {
+            task.run();
+            return;
+        }
+        OverloadHandler handler = (OverloadHandler) event.getSource();
+        handler.pauseInput();
+        deferredTasks.offerLast(new DeferredTask(event, task, handler));
+        deferredCount.incrementAndGet();
+        // 暂存期间可能已有任务执行完毕，立即尝试提交一次
+        capacityAvailable(eventManager);
+    }
+
+    /**
+     * 同一时间只有一个线程提交暂存任务；提交期间收到的通知使其再尝试一轮，
+     * 避免一个线程取出任务提交失败、尚未放回时另一个线程的空位通知被错过，暂存的任务再也没有机会提交
+     */
+    @Override
+    public void capacityAvailable(AbstractEventManager eventManager) {
+        if (signals.getAndIncrement() != 0) {
+            return;
+        }
+        int handled = 1;
+        do {
+            submitDeferred(eventManager);
+        } while ((handled = signals.addAndGet(-handled)) != 0);
+    }
+
+    private void submitDeferred(AbstractEventManager eventManager) {
+        DeferredTask deferred;
+        while ((deferred = deferredTasks.pollFirst()) != null) {
+            if (!eventManager.tryExecute(deferred.event, deferred.task)) {
+                // 队列仍然已满，放回队首等待下次空位
+                deferredTasks.offerFirst(deferred);
+                return;
+            }
+            deferredCount.decrementAndGet();
+            deferred.handler.resumeInput();
+        }
+    }
+
+    @Override
+    public int getDeferredCount() {
+        return deferredCount.get();
+    }
+
+    private static final class DeferredTask {
+        private final Event event;
+        private final Runnable task;
+        private final OverloadHandler handler;
+
+        private DeferredTask(Event event, Runnable task, OverloadHandler handler) {
+            this.event = event;
+            this.task = task;
+            this.handler = handler;
+        }
+    }
+}
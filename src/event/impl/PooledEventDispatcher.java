@@ -0,0 +1,98 @@
+package event.impl;
+
+import event.Event;
+import event.EventDispatcher;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 共享线程池分发器：所有事件提交到同一个有界线程池，由任意空闲线程处理
+ */
+public class PooledEventDispatcher implements EventDispatcher {
+    private final ExecutorService executor;
+
+    public PooledEventDispatcher(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 创建有界线程池：核心线程全忙时任务进入有界队列，队列满后扩充到最大线程数，仍无法处理时拒绝
+     * @param corePoolSize 核心线程数
+     * @param maxPoolSize 最大线程数
+     * @param keepAliveSeconds 空闲线程存活时间（秒）
+     * @param queueCapacity 队列容量
+     * @param threadName 线程名前缀
+     * @param afterTask 每个任务执行完毕后的回调
+     * @return 线程池
+     */
+    public static ThreadPoolExecutor createExecutor(int corePoolSize, int maxPoolSize, long keepAliveSeconds,
+                                                    int queueCapacity, String threadName, Runnable afterTask) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(corePoolSize, Math.max(corePoolSize, maxPoolSize),
+                keepAliveSeconds, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> new Thread(r, threadName + "-" + threadIndex.incrementAndGet())) {
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                afterTask.run();
+            }
+        };
+    }
+
+    /**
+     * 提交任务到线程池，线程池已关闭时丢弃任务
+     * @return 队列已满无法提交时返回false
+     */
+    static boolean tryExecute(ExecutorService executor, Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                System.err.println("事件管理器已关闭，丢弃事件");
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public boolean tryDispatch(Event event, Runnable task) {
+        return tryExecute(executor, task);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public String getInfo() {
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor tpe = (ThreadPoolExecutor) executor;
+            return String.format("核心线程数=%d, 最大线程数=%d, 当前线程数=%d, 活动线程数=%d, 任务队列大小=%d/%d, 已完成任务数=%d",
+                    tpe.getCorePoolSize(),
+                    tpe.getMaximumPoolSize(),
+                    tpe.getPoolSize(),
+                    tpe.getActiveCount(),
+                    tpe.getQueue().size(),
+                    tpe.getQueue().size() + tpe.getQueue().remainingCapacity(),
+                    tpe.getCompletedTaskCount());
+        }
+        return executor.toString();
+    }
+}
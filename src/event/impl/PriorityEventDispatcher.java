@@ -0,0 +1,228 @@
+package event.impl;
+
+import event.Event;
+import event.EventDispatcher;
+import event.PriorityClassifier;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 优先级分发器：事件由分类器划分到不同的优先级类别，每个类别有独立的有界队列
+ * 工作线程按加权轮询（平滑加权轮询）从非空队列中取任务，权重高的类别获得更多的处理机会，
+ * 低权重的类别也不会被饿死。批量接口的积压只会填满自己的队列，不会拖慢健康检查等关键请求
+ */
+public class PriorityEventDispatcher implements EventDispatcher {
+    private final PriorityClassifier classifier;
+    private final String[] classNames;
+    private final int[] weights;
+    private final int queueCapacity;
+    private final ArrayDeque<Runnable>[] queues;
+    // 平滑加权轮询的当前权重
+    private final int[] currentWeights;
+    private final long[] completedCounts;
+    private final Map<String, Integer> classIndex = new HashMap<>();
+    // 分类结果为null或未配置的类别时使用的类别下标
+    private final int defaultIndex;
+    private final Runnable afterTask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Thread[] workers;
+    private int queuedCount = 0;
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param priorityClasses 优先级类别及权重，格式：类别:权重，用逗号分隔，如 critical:8,normal:4,batch:1。
+     *                        分类结果为null或未配置的类别时归入分类器的默认类别，默认类别同样未配置时归入最后一个类别
+     * @param classifier 优先级分类器
+     * @param threadCount 工作线程数
+     * @param queueCapacity 每个类别的队列容量
+     * @param afterTask 每个任务执行完毕后的回调
+     */
+    public PriorityEventDispatcher(String priorityClasses, PriorityClassifier classifier,
+                                   int threadCount, int queueCapacity, Runnable afterTask) {
+        String[] entries = priorityClasses.split(",");
+        this.classifier = classifier;
+        this.classNames = new String[entries.length];
+        this.weights = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String entry = entries[i].trim();
+            int colon = entry.indexOf(':');
+            classNames[i] = colon == -1 ? entry : entry.substring(0, colon).trim();
+            weights[i] = colon == -1 ? 1 : Math.max(1, Integer.parseInt(entry.substring(colon + 1).trim()));
+            classIndex.put(classNames[i], i);
+        }
+        String defaultClass = classifier != null ? classifier.getDefaultClass() : null;
+        Integer configuredDefault = defaultClass != null ? classIndex.get(defaultClass) : null;
+        if (defaultClass != null && configuredDefault == null) {
+            System.err.println("默认优先级类别 " + defaultClass + " 未在 " + priorityClasses + " 中配置，使用最后一个类别");
+        }
+        this.defaultIndex = configuredDefault != null ? configuredDefault : entries.length - 1;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.queues = newQueues(entries.length);
+        this.currentWeights = new int[entries.length];
+        this.completedCounts = new long[entries.length];
+        this.afterTask = afterTask;
+
+        workers = new Thread[Math.max(1, threadCount)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::work, "EventPriorityWorker-" + (i + 1));
+            workers[i].start();
+        }
+    }
+
+    /**
+     * 创建各类别的任务队列，泛型数组只能先创建通配类型的数组再转换
+     */
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Runnable>[] newQueues(int count) {
+        ArrayDeque<Runnable>[] queues = (ArrayDeque<Runnable>[]) new ArrayDeque<?>[count];
+        for (int i = 0; i < count; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+        return queues;
+    }
+
+    /**
+     * 获取事件所属类别的下标
+     */
+    private int classOf(Event event) {
+        String name = classifier != null ? classifier.classify(event) : null;
+        Integer index = name != null ? classIndex.get(name) : null;
+        return index != null ? index : defaultIndex;
+    }
+
+    @Override
+    public boolean tryDispatch(Event event, Runnable task) {
+        if (shutdown) {
+            System.err.println("事件管理器已关闭，丢弃事件");
+            return true;
+        }
+        int index = classOf(event);
+        lock.lock();
+        try {
+            if (queues[index].size() >= queueCapacity) {
+                return false;
+            }
+            queues[index].offerLast(task);
+            queuedCount++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 工作线程主循环
+     */
+    private void work() {
+        while (true) {
+            Runnable task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.err.println("事件处理任务执行失败: " + t.getMessage());
+            }
+            afterTask.run();
+        }
+    }
+
+    /**
+     * 按平滑加权轮询从非空队列中取出下一个任务
+     * @return 任务，分发器已关闭且队列为空时返回null
+     */
+    private Runnable take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queuedCount == 0) {
+                if (shutdown) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+            int totalWeight = 0;
+            int selected = -1;
+            for (int i = 0; i < queues.length; i++) {
+                if (queues[i].isEmpty()) {
+                    continue;
+                }
+                currentWeights[i] += weights[i];
+                totalWeight += weights[i];
+                if (selected == -1 || currentWeights[i] > currentWeights[selected]) {
+                    selected = i;
+                }
+            }
+            currentWeights[selected] -= totalWeight;
+            queuedCount--;
+            completedCounts[selected]++;
+            return queues[selected].pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdownNow() {
+        lock.lock();
+        try {
+            shutdown = true;
+            for (ArrayDeque<Runnable> queue : queues) {
+                queue.clear();
+            }
+            queuedCount = 0;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public String getInfo() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("工作线程数=").append(workers.length).append(", 优先级类别=[");
+        lock.lock();
+        try {
+            for (int i = 0; i < classNames.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(String.format("%s(权重=%d, 队列=%d/%d, 已取出=%d)",
+                        classNames[i], weights[i], queues[i].size(), queueCapacity, completedCounts[i]));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,21 @@
+package event.impl;
+
+import event.AbstractEventManager;
+import event.Event;
+import event.OverloadHandler;
+import event.OverloadPolicy;
+
+/**
+ * 拒绝策略：过载时由事件源直接返回503，不再排队
+ * 事件源不支持过载处理时在调用者线程中执行
+ */
+public class RejectOverloadPolicy implements OverloadPolicy {
+    @Override
+    public void rejected(Event event, Runnable task, AbstractEventManager eventManager) {
+        if (event.getSource() instanceof OverloadHandler) {
+            ((OverloadHandler) event.getSource()).rejectOverloaded(event);
+        } else {
+            task.run();
+        }
+    }
+}
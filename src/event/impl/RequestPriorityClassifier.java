@@ -0,0 +1,141 @@
+package event.impl;
+
+import event.Event;
+import event.HttpEvent;
+import event.PriorityClassifier;
+import http.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按请求路径前缀或请求头对HTTP请求分类，路径前缀按路径段边界匹配
+ * 路径规则按配置顺序匹配，第一条匹配的规则生效；配置了优先级请求头且请求中携带时，以请求头的值为准
+ */
+public class RequestPriorityClassifier implements PriorityClassifier {
+    // 路径前缀规则，格式：前缀=类别，多条规则用逗号分隔，如 /health=critical,/batch/=batch
+    private String rules = "";
+    // 指定优先级类别的请求头名称，为空时不使用。客户端可以借此提升自己的优先级，只应在可信的网关之后开启
+    private String priorityHeader = "";
+    // 没有规则匹配时的类别
+    private String defaultClass = "normal";
+
+    private volatile List<String[]> parsedRules;
+
+    public RequestPriorityClassifier() {
+    }
+
+    @Override
+    public String classify(Event event) {
+        if (!(event instanceof HttpEvent)) {
+            return defaultClass;
+        }
+        HttpEvent httpEvent = (HttpEvent) event;
+        HttpRequest request = httpEvent.getRequest();
+        String url;
+        String headerValue = null;
+        if (request != null) {
+            url = request.getUrl();
+            if (!priorityHeader.isEmpty()) {
+                headerValue = request.getHeader(priorityHeader);
+            }
+        } else {
+            // 事件中只有原始请求数据，从请求行和请求头中提取
+            String requestData = httpEvent.getRequestData();
+            if (requestData == null) {
+                return defaultClass;
+            }
+            url = parseUrl(requestData);
+            if (!priorityHeader.isEmpty()) {
+                headerValue = parseHeader(requestData, priorityHeader);
+            }
+        }
+
+        if (headerValue != null && !headerValue.trim().isEmpty()) {
+            return headerValue.trim();
+        }
+        if (url != null) {
+            for (String[] rule : getParsedRules()) {
+                if (matchesPrefix(url, rule[0])) {
+                    return rule[1];
+                }
+            }
+        }
+        return defaultClass;
+    }
+
+    /**
+     * 按路径段边界匹配前缀：/api匹配/api和/api/users，不匹配/apix；以/结尾的前缀只匹配其下的路径
+     */
+    private static boolean matchesPrefix(String url, String prefix) {
+        if (!url.startsWith(prefix)) {
+            return false;
+        }
+        if (url.length() == prefix.length() || prefix.endsWith("/")) {
+            return true;
+        }
+        char next = url.charAt(prefix.length());
+        return next == '/' || next == '?';
+    }
+
+    private List<String[]> getParsedRules() {
+        List<String[]> current = parsedRules;
+        if (current == null) {
+            current = new ArrayList<>();
+            for (String rule : rules.split(",")) {
+                int index = rule.indexOf('=');
+                if (index > 0) {
+                    current.add(new String[]{rule.substring(0, index).trim(), rule.substring(index + 1).trim()});
+                }
+            }
+            parsedRules = current;
+        }
+        return current;
+    }
+
+    private static String parseUrl(String requestData) {
+        int lineEnd = requestData.indexOf('\n');
+        String requestLine = lineEnd == -1 ? requestData : requestData.substring(0, lineEnd);
+        String[] parts = requestLine.trim().split(" ");
+        return parts.length >= 2 ? parts[1] : null;
+    }
+
+    private static String parseHeader(String requestData, String name) {
+        for (String line : requestData.split("\r?\n")) {
+            if (line.isEmpty()) {
+                break;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                return line.substring(colon + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    public String getRules() {
+        return rules;
+    }
+
+    public void setRules(String rules) {
+        this.rules = rules;
+        this.parsedRules = null;
+    }
+
+    public String getPriorityHeader() {
+        return priorityHeader;
+    }
+
+    public void setPriorityHeader(String priorityHeader) {
+        this.priorityHeader = priorityHeader;
+    }
+
+    @Override
+    public String getDefaultClass() {
+        return defaultClass;
+    }
+
+    public void setDefaultClass(String defaultClass) {
+        this.defaultClass = defaultClass;
+    }
+}
@@ -0,0 +1,211 @@
+package event.impl;
+
+import event.Event;
+import event.EventDispatcher;
+import event.WaitStrategy;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于预分配环形缓冲区的分发器，参考Disruptor的设计
+ * 生产者（事件循环线程）通过CAS认领序号并写入可复用的任务槽，消费者线程共享一个工作序号，认领已发布的任务执行，
+ * 整个过程不加锁，也不为排队的任务创建队列节点。环形缓冲区已满时生产者不等待，直接返回false交给过载策略处理：
+ * 事件循环一旦阻塞，等待它读写数据的消费者也无法继续，两者会互相等待直到超时
+ */
+public class RingBufferEventDispatcher implements EventDispatcher {
+    private final TaskSlot[] slots;
+    private final int ringSize;
+    private final int mask;
+    private final int indexShift;
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+    private final Runnable afterTask;
+    // 每个槽位最近一次发布的轮次，用于判断序号是否已发布
+    private final AtomicIntegerArray published;
+    // 已被生产者认领的最大序号
+    private final AtomicLong cursor = new AtomicLong(-1);
+    // 已被消费者认领的最大序号
+    private final AtomicLong workSequence = new AtomicLong(-1);
+    // 每个消费者已处理完成的序号，没有执行中的任务时为Long.MAX_VALUE，生产者据此判断槽位是否可以复用
+    private final AtomicLong[] consumerSequences;
+    private volatile long cachedGatingSequence = -1;
+    private final Thread[] consumers;
+    private volatile boolean running = true;
+    private volatile boolean halted = false;
+
+    /**
+     * @param ringSize 环形缓冲区容量，必须是2的幂
+     * @param consumerCount 消费者线程数
+     * @param batchSize 消费者每次最多认领的任务数，大于1时一个阻塞的任务会拖住同批的其他任务，只适合不阻塞的监听器
+     * @param waitStrategy 等待策略
+     * @param afterTask 每个任务执行完毕后的回调
+     */
+    public RingBufferEventDispatcher(int ringSize, int consumerCount, int batchSize,
+                                     WaitStrategy waitStrategy, Runnable afterTask) {
+        if (ringSize <= 0 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("ringSize must be a power of 2: " + ringSize);
+        }
+        this.ringSize = ringSize;
+        this.slots = new TaskSlot[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            slots[i] = new TaskSlot();
+        }
+        this.mask = ringSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(ringSize);
+        this.published = new AtomicIntegerArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            published.set(i, -1);
+        }
+        this.batchSize = Math.max(1, batchSize);
+        this.waitStrategy = waitStrategy;
+        this.afterTask = afterTask;
+        this.consumerSequences = new AtomicLong[Math.max(1, consumerCount)];
+        this.consumers = new Thread[consumerSequences.length];
+        for (int i = 0; i < consumers.length; i++) {
+            consumerSequences[i] = new AtomicLong(-1);
+            AtomicLong sequence = consumerSequences[i];
+            consumers[i] = new Thread(() -> consume(sequence), "RingBufferConsumer-" + (i + 1));
+            consumers[i].start();
+        }
+    }
+
+    @Override
+    public boolean tryDispatch(Event event, Runnable task) {
+        if (!running) {
+            System.err.println("事件管理器已关闭，丢弃事件");
+            return true;
+        }
+        long sequence = tryClaim();
+        if (sequence < 0) {
+            return false;
+        }
+        int index = (int) (sequence & mask);
+        slots[index].task = task;
+        // 发布：写入本轮轮次，消费者读取到后才会访问槽位
+        published.lazySet(index, (int) (sequence >>> indexShift));
+        return true;
+    }
+
+    /**
+     * 认领下一个序号，只在与其他生产者竞争时重试
+     * @return 序号，环形缓冲区已满时返回-1
+     */
+    private long tryClaim() {
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - ringSize;
+            if (wrapPoint > cachedGatingSequence) {
+                long gating = minimumConsumerSequence();
+                cachedGatingSequence = gating;
+                if (wrapPoint > gating) {
+                    return -1;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * 可以复用的最大序号：未被认领的任务和执行中的任务所在的槽位都不能复用
+     * 先读工作序号再读各消费者的序号，消费者在认领前已登记序号，不会漏掉刚被认领的任务
+     */
+    private long minimumConsumerSequence() {
+        long minimum = workSequence.get();
+        for (AtomicLong sequence : consumerSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) (sequence & mask)) == (int) (sequence >>> indexShift);
+    }
+
+    /**
+     * 消费者线程主循环：认领已发布的连续任务（默认每次一个）并依次执行，没有任务时按等待策略等待
+     * @param sequence 当前消费者已处理完成的序号
+     */
+    private void consume(AtomicLong sequence) {
+        int counter = 0;
+        while (!halted) {
+            long current = workSequence.get();
+            // 不大于工作序号的任务都已被认领，本消费者此时没有未处理完的任务
+            sequence.set(current);
+            long start = current + 1;
+            long limit = Math.min(cursor.get(), current + batchSize);
+            long end = current;
+            while (end < limit && isPublished(end + 1)) {
+                end++;
+            }
+            if (end == current) {
+                if (!running) {
+                    return;
+                }
+                // 空闲时不再限制生产者，否则过期的序号会让环形缓冲区一直显示为已满
+                sequence.set(Long.MAX_VALUE);
+                waitStrategy.idle(counter++);
+                continue;
+            }
+            if (!workSequence.compareAndSet(current, end)) {
+                // 被其他消费者抢先认领
+                continue;
+            }
+            counter = 0;
+            for (long s = start; s <= end; s++) {
+                TaskSlot slot = slots[(int) (s & mask)];
+                Runnable task = slot.task;
+                slot.task = null;
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    System.err.println("事件处理任务执行失败: " + t.getMessage());
+                }
+                // 先登记已完成的序号再回调，过载策略重新提交时能看到刚空出的槽位
+                sequence.set(s);
+                afterTask.run();
+            }
+        }
+    }
+
+    /**
+     * 停止接收任务，消费者执行完已发布的任务后退出
+     */
+    @Override
+    public void shutdown() {
+        running = false;
+    }
+
+    /**
+     * 立即停止，未执行的任务被丢弃
+     */
+    @Override
+    public void shutdownNow() {
+        running = false;
+        halted = true;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return !running;
+    }
+
+    @Override
+    public String getInfo() {
+        long claimed = workSequence.get();
+        long cursorValue = cursor.get();
+        return String.format("容量=%d, 消费者线程数=%d, 批量大小=%d, 已发布=%d, 已认领=%d, 积压=%d",
+                ringSize, consumers.length, batchSize, cursorValue + 1, claimed + 1,
+                Math.max(0, cursorValue - claimed));
+    }
+
+    /**
+     * 可复用的任务槽
+     */
+    private static final class TaskSlot {
+        private Runnable task;
+    }
+}
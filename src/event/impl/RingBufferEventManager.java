@@ -0,0 +1,91 @@
+package event.impl;
+
+import event.AbstractEventManager;
+import event.EventDispatcher;
+import event.WaitStrategy;
+
+/**
+ * 基于预分配环形缓冲区的事件管理器，事件处理任务由RingBufferEventDispatcher分发给消费者线程，
+ * 环形缓冲区已满时与其他分发模式一样交给过载策略处理
+ */
+public class RingBufferEventManager extends AbstractEventManager {
+    // 环形缓冲区容量，必须是2的幂
+    private int ringSize = 1024;
+    // 消费者线程数，监听器中会执行阻塞的Servlet调用，默认多于CPU核心数
+    private int consumerCount = Runtime.getRuntime().availableProcessors() * 2;
+    // 消费者每次最多认领的事件数，监听器会阻塞时必须为1，否则同批事件被一个慢请求拖住
+    private int batchSize = 1;
+    // 等待策略：busy-spin、yield、park，或自定义策略的类名
+    private String waitStrategy = "park";
+
+    public RingBufferEventManager() {
+    }
+
+    /**
+     * 首次触发事件时按配置创建环形缓冲区并启动消费者线程
+     */
+    @Override
+    protected EventDispatcher createDispatcher(Runnable afterTask) {
+        return new RingBufferEventDispatcher(ringSize, consumerCount, batchSize,
+                createWaitStrategy(waitStrategy), afterTask);
+    }
+
+    private static WaitStrategy createWaitStrategy(String name) {
+        switch (name) {
+            case "busy-spin":
+                return new BusySpinWaitStrategy();
+            case "yield":
+                return new YieldingWaitStrategy();
+            case "park":
+                return new ParkingWaitStrategy();
+            default:
+                try {
+                    return (WaitStrategy) Class.forName(name).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unknown wait strategy: " + name, e);
+                }
+        }
+    }
+
+    /**
+     * 获取环形缓冲区信息
+     * @return 环形缓冲区信息字符串
+     */
+    @Override
+    public String getThreadPoolInfo() {
+        return String.format("环形缓冲区信息: %s, 等待策略=%s, 过载策略=%s, 拒绝次数=%d",
+                getDispatcher().getInfo(), waitStrategy, getOverloadPolicy(), getRejectedCount());
+    }
+
+    public int getRingSize() {
+        return ringSize;
+    }
+
+    public void setRingSize(int ringSize) {
+        this.ringSize = ringSize;
+    }
+
+    public int getConsumerCount() {
+        return consumerCount;
+    }
+
+    public void setConsumerCount(int consumerCount) {
+        this.consumerCount = consumerCount;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public String getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(String waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+}
@@ -0,0 +1,80 @@
+package event.impl;
+
+import event.Event;
+import event.EventDispatcher;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 分片分发器：按事件源（连接）的哈希把事件固定分配到一个单线程通道
+ * 同一连接的事件总是在同一个线程中按提交顺序处理，无需加锁，连接状态也能留在同一个CPU核心的缓存中；
+ * 不同连接分布在各个通道上并行处理
+ */
+public class ShardedEventDispatcher implements EventDispatcher {
+    private final ThreadPoolExecutor[] lanes;
+
+    /**
+     * @param laneCount 通道数
+     * @param laneCapacity 每个通道的队列容量
+     * @param afterTask 每个任务执行完毕后的回调
+     */
+    public ShardedEventDispatcher(int laneCount, int laneCapacity, Runnable afterTask) {
+        lanes = new ThreadPoolExecutor[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = PooledEventDispatcher.createExecutor(1, 1, 0, laneCapacity,
+                    "EventLane-" + i, afterTask);
+        }
+    }
+
+    /**
+     * 根据事件源选择通道
+     */
+    private ThreadPoolExecutor laneOf(Event event) {
+        Object source = event.getSource();
+        int hash = source == null ? 0 : System.identityHashCode(source);
+        // 混合高位，避免哈希值低位分布不均
+        hash ^= hash >>> 16;
+        return lanes[(hash & 0x7fffffff) % lanes.length];
+    }
+
+    @Override
+    public boolean tryDispatch(Event event, Runnable task) {
+        return PooledEventDispatcher.tryExecute(laneOf(event), task);
+    }
+
+    @Override
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    @Override
+    public void shutdownNow() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return lanes[0].isShutdown();
+    }
+
+    @Override
+    public String getInfo() {
+        int queued = 0;
+        int maxQueued = 0;
+        int capacity = 0;
+        long completed = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            int size = lane.getQueue().size();
+            queued += size;
+            maxQueued = Math.max(maxQueued, size);
+            capacity += size + lane.getQueue().remainingCapacity();
+            completed += lane.getCompletedTaskCount();
+        }
+        return String.format("通道数=%d, 任务队列大小=%d/%d, 最长通道队列=%d, 已完成任务数=%d",
+                lanes.length, queued, capacity, maxQueued, completed);
+    }
+}
@@ -0,0 +1,17 @@
+package event.impl;
+
+import event.WaitStrategy;
+
+/**
+ * 让步策略：先空转一段时间，之后每次调用Thread.yield()让出CPU
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public void idle(int counter) {
+        if (counter >= SPIN_TRIES) {
+            Thread.yield();
+        }
+    }
+}
@@ -60,6 +60,12 @@ public interface HttpRequest {
     String getRequestData();
     void setBody(String body);
 
+    /**
+     * 获取请求体输入流，大请求体不会整体缓存在内存中，应通过该流读取
+     * @return 请求体输入流
+     */
+    InputStream getInputStream();
+
 
     /**
      * 判断是否保持连接
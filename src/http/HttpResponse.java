@@ -1,5 +1,9 @@
 package http;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Map;
 
 /**
@@ -37,6 +41,12 @@ public interface HttpResponse {
      * @return 响应头映射
      */
     Map<String, String> getHeaders();
+
+    /**
+     * 删除响应头
+     * @param name 头名称
+     */
+    void removeHeader(String name);
     
     /**
      * 设置响应体
@@ -44,6 +54,21 @@ public interface HttpResponse {
      */
     void setBody(String body);
     
+    /**
+     * 以字节缓冲区作为响应体，发送时不复制缓冲区的内容，适合内存映射的文件
+     * @param body 响应体，发送position到limit之间的内容
+     */
+    void setBody(ByteBuffer body);
+
+    /**
+     * 以文件的一段作为响应体，NIO连接上通过FileChannel.transferTo直接从页缓存发送到套接字
+     * 文件通道在响应发送完成或失败后由响应负责关闭
+     * @param file 文件通道
+     * @param position 起始位置
+     * @param count 字节数
+     */
+    void setFileBody(FileChannel file, long position, long count);
+
     /**
      * 获取响应体
      * @return 响应体内容
@@ -56,8 +81,32 @@ public interface HttpResponse {
      */
     void write(byte[] data);
     
+    /**
+     * 获取响应体输出流，以流的方式写出响应体。数据先写入缓冲区，缓冲区写满或调用flush时提交响应：
+     * 发送响应行和响应头，没有设置Content-Length时以Transfer-Encoding: chunked分块发送。
+     * 提交前设置的响应体会先写入输出流；提交后不能再修改状态码、响应头和响应体。关闭输出流即完成响应
+     * @return 响应体输出流
+     */
+    OutputStream getOutputStream();
+
+    /**
+     * 提交响应并立即发送输出流中已写入的数据
+     */
+    void flush() throws IOException;
+
+    /**
+     * 判断响应头是否已经发送
+     * @return 是否已提交
+     */
+    boolean isCommitted();
+
     /**
      * 完成响应
      */
     void finish();
+
+    /**
+     * 中止响应并在已写出的数据发送完后关闭连接，用于响应已提交后处理失败、无法再返回错误状态码的情况
+     */
+    void abort();
 }
\ No newline at end of file
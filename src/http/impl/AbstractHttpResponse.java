@@ -3,6 +3,8 @@ package http.impl;
 import http.HttpResponse;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,11 +16,22 @@ public abstract class AbstractHttpResponse implements HttpResponse {
     protected String statusMessage = "OK";
     protected Map<String, String> headers = new HashMap<>();
     protected StringBuilder body = new StringBuilder();
+    // 字节缓冲区或文件区间形式的响应体，设置后代替body发送
+    protected ByteBuffer byteBody;
+    protected FileChannel fileBody;
+    protected long filePosition;
+    protected long fileCount;
+    // 流式响应的输出流，首次调用getOutputStream时创建
+    protected ResponseOutputStream outputStream;
     protected boolean finished = false;
 
     public AbstractHttpResponse(String responseData) throws IOException {
         //this.outputStream = new ByteArrayOutputStream();
         //this.writer = new PrintWriter(outputStream, true);
+        this();
+    }
+
+    protected AbstractHttpResponse() {
         // 设置默认响应头
         setHeader("Server", "MyTomcat/1.0");
         setHeader("Content-Type", "text/html;charset=UTF-8");
@@ -50,10 +63,36 @@ public abstract class AbstractHttpResponse implements HttpResponse {
         return new HashMap<>(headers);
     }
 
+    @Override
+    public void removeHeader(String name) {
+        headers.remove(name);
+    }
+
     @Override
     public void setBody(String body) {
+        resetStream();
         this.body.setLength(0);
         this.body.append(body);
+        this.byteBody = null;
+        this.fileBody = null;
+    }
+
+    @Override
+    public void setBody(ByteBuffer body) {
+        resetStream();
+        this.body.setLength(0);
+        this.byteBody = body;
+        this.fileBody = null;
+    }
+
+    @Override
+    public void setFileBody(FileChannel file, long position, long count) {
+        resetStream();
+        this.body.setLength(0);
+        this.byteBody = null;
+        this.fileBody = file;
+        this.filePosition = position;
+        this.fileCount = count;
     }
 
     @Override
@@ -61,6 +100,25 @@ public abstract class AbstractHttpResponse implements HttpResponse {
         return body.toString();
     }
 
+    @Override
+    public void flush() throws IOException {
+        getOutputStream().flush();
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return outputStream != null && outputStream.isCommitted();
+    }
+
+    /**
+     * 重新设置响应体时丢弃输出流中还未提交的数据
+     */
+    protected void resetStream() {
+        if (outputStream != null) {
+            outputStream.reset();
+        }
+    }
+
     @Override
     public abstract void write(byte[] data);
     @Override
@@ -68,15 +126,8 @@ public abstract class AbstractHttpResponse implements HttpResponse {
     /**
      * 根据状态码获取状态消息
      */
-    private String getStatusMessage(int statusCode) {
-        switch (statusCode) {
-            case 200: return "OK";
-            case 400: return "Bad Request";
-            case 404: return "Not Found";
-            case 500: return "Internal Server Error";
-            case 405: return "Method Not Allowed";
-            default: return "Unknown Status";
-        }
+    protected String getStatusMessage(int statusCode) {
+        return HttpResponseEncoder.getStatusMessage(statusCode);
     }
 
 }
\ No newline at end of file
@@ -1,18 +1,44 @@
 package http.impl;
 
+import http.HttpRequest;
+import server.impl.BioConnection;
+
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.net.Socket;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 public class BioHttpResponse extends AbstractHttpResponse {
-    private OutputStream outputStream;
+    // 流式响应的缓冲区大小，即chunked分块大小
+    private static final int RESPONSE_BUFFER_SIZE = 8192;
+    private OutputStream socketOutput;
     private PrintWriter writer;
+    // 每连接一个线程模式下的连接，事件模式下为null
+    private BioConnection connection;
+    private HttpRequest request;
+    // 流式响应提交时确定的是否保持连接
+    private boolean streamKeepAlive;
     public BioHttpResponse(String responseData, Socket clientSocket) throws IOException {
         super(responseData);
-        this.outputStream = clientSocket.getOutputStream();
-        this.writer = new PrintWriter(outputStream, true);
+        this.socketOutput = clientSocket.getOutputStream();
+        this.writer = new PrintWriter(socketOutput, true);
+    }
+
+    /**
+     * 每连接一个线程模式下创建响应，写出后根据请求决定是否保持连接
+     * @param connection 连接
+     * @param request 请求
+     */
+    public BioHttpResponse(BioConnection connection, HttpRequest request) throws IOException {
+        super(null);
+        this.connection = connection;
+        this.request = request;
+        this.socketOutput = connection.getOutputStream();
     }
 
     @Override
@@ -21,43 +47,180 @@ public class BioHttpResponse extends AbstractHttpResponse {
             if (finished) {
                 throw new IllegalStateException("Response has already been finished");
             }
-            outputStream.write(data);
+            // 写入输出流，数据超过缓冲区后以chunked编码边写边发送
+            getOutputStream().write(data);
         } catch (IOException e) {
             e.printStackTrace();
         }
 
     }
 
+    @Override
+    public OutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ResponseOutputStream(RESPONSE_BUFFER_SIZE) {
+                @Override
+                protected boolean commit() throws IOException {
+                    return commitStream();
+                }
+
+                @Override
+                protected void send(ByteBuffer data) throws IOException {
+                    // 阻塞式写出，慢速客户端自然会让写出线程等待
+                    if (!isBodyOmitted()) {
+                        socketOutput.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+                        socketOutput.flush();
+                    }
+                }
+
+                @Override
+                public void close() {
+                    finish();
+                }
+            };
+            // 之前设置的响应体作为输出流的开头
+            if (body.length() > 0 && byteBody == null && fileBody == null) {
+                byte[] existing = body.toString().getBytes(StandardCharsets.UTF_8);
+                body.setLength(0);
+                try {
+                    outputStream.write(existing);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return outputStream;
+    }
+
+    /**
+     * 提交流式响应：发送响应头。没有设置Content-Length时使用chunked编码，
+     * HTTP/1.0客户端不支持chunked编码，以关闭连接表示响应结束
+     * @return 是否使用chunked编码
+     */
+    private boolean commitStream() throws IOException {
+        streamKeepAlive = isKeepAlive();
+        if (HttpResponseEncoder.isBodiless(statusCode)) {
+            // 没有响应体的状态码不使用chunked编码，写入的数据全部丢弃
+            headers.remove("Content-Length");
+            if (connection != null) {
+                setKeepAlive(streamKeepAlive);
+            }
+            writeHeader();
+            return false;
+        }
+        boolean chunked = headers.get("Content-Length") == null;
+        if (chunked && !isHttp11()) {
+            chunked = false;
+            streamKeepAlive = false;
+        }
+        if (connection != null) {
+            setKeepAlive(streamKeepAlive);
+        }
+        if (chunked) {
+            setHeader("Transfer-Encoding", "chunked");
+        }
+        writeHeader();
+        return chunked;
+    }
+
+    /**
+     * 结束已提交的流式响应
+     */
+    private void finishStream() {
+        try {
+            outputStream.finishStream();
+            socketOutput.flush();
+            finished = true;
+            if (connection != null) {
+                connection.responseFinished(streamKeepAlive);
+            }
+        } catch (IOException e) {
+            // 未调用responseFinished，连接会被关闭
+            finished = true;
+            System.err.println("发送响应失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void abort() {
+        if (finished) {
+            return;
+        }
+        // 不调用responseFinished，处理线程返回后关闭连接
+        finished = true;
+        if (outputStream != null) {
+            outputStream.abort();
+        }
+        closeFileBody();
+    }
+
+    private boolean isHeadRequest() {
+        return request != null && "HEAD".equals(request.getMethod());
+    }
+
+    /**
+     * HEAD请求和没有响应体的状态码只发送响应头
+     */
+    private boolean isBodyOmitted() {
+        return isHeadRequest() || HttpResponseEncoder.isBodiless(statusCode);
+    }
+
+    private boolean isHttp11() {
+        return request instanceof HttpRequestImpl && "HTTP/1.1".equals(((HttpRequestImpl) request).getProtocol());
+    }
+
     @Override
     public void finish() {
         if (finished) {
             return;
         }
+        if (isCommitted()) {
+            finishStream();
+            return;
+        }
 
+        boolean keepAlive = isKeepAlive();
+        if (connection != null) {
+            setKeepAlive(keepAlive);
+        }
         try {
-            // 设置Content-Length
-            byte[] bodyBytes = body.toString().getBytes("UTF-8");
-            setHeader("Content-Length", String.valueOf(bodyBytes.length));
-
-            // 使用StringBuilder构建完整响应，减少IO操作次数
-            StringBuilder responseBuilder = new StringBuilder();
-            // 响应行
-            responseBuilder.append("HTTP/1.1 ").append(statusCode).append(" ").append(statusMessage).append("\r\n");
-            // 响应头
-            for (Map.Entry<String, String> entry : headers.entrySet()) {
-                responseBuilder.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
+            if (outputStream != null) {
+                // 输出流中的数据未超过缓冲区，作为完整响应体发送
+                appendBuffered(outputStream.takeBuffered());
+            }
+            if (fileBody == null && byteBody == null) {
+                // 字符串响应体直接编码为UTF-8字节，不经过中间的String
+                byteBody = ByteBuffer.allocate(HttpResponseEncoder.utf8Length(body));
+                HttpResponseEncoder.putUtf8(byteBody, body);
+                byteBody.flip();
+            }
+            if (fileBody == null) {
+                // 压缩阶段：满足条件时以压缩后的字节代替原响应体
+                ByteBuffer compressed = ResponseCompressor.getInstance().compress(request, this, byteBody);
+                if (compressed != null) {
+                    byteBody = compressed;
+                }
+            }
+            // 设置Content-Length，字节缓冲区或文件区间形式的响应体不经过字符串转换
+            long contentLength = fileBody != null ? fileCount : byteBody.remaining();
+            if (HttpResponseEncoder.isBodiless(statusCode)) {
+                headers.remove("Content-Length");
+            } else {
+                setHeader("Content-Length", String.valueOf(contentLength));
             }
-            // 空行分隔响应头和响应体
-            responseBuilder.append("\r\n");
 
-            // 发送响应头和空行
-            byte[] headersBytes = responseBuilder.toString().getBytes("UTF-8");
-            outputStream.write(headersBytes);
-            // 发送响应体
-            outputStream.write(bodyBytes);
-            outputStream.flush();
+            // 发送响应头和空行，响应头和响应体在带缓冲的输出流中合并写出
+            writeHeader();
+            // 发送响应体，HEAD请求和没有响应体的状态码只发送响应头
+            if (!isBodyOmitted()) {
+                writeBinaryBody();
+            }
+            socketOutput.flush();
 
             finished = true;
+            if (connection != null) {
+                connection.responseFinished(keepAlive);
+            }
         } catch (java.net.SocketException e) {
             // 处理客户端连接关闭的情况，这是正常现象
             if (e.getMessage().contains("Software caused connection abort") ||
@@ -69,7 +232,86 @@ public class BioHttpResponse extends AbstractHttpResponse {
             }
         } catch (IOException e) {
             throw new RuntimeException("Error finishing response", e);
+        } finally {
+            closeFileBody();
+        }
+    }
+
+    /**
+     * 把响应行和响应头编码后写入输出流，每连接一个线程模式下复用连接的编码缓冲区
+     */
+    private void writeHeader() throws IOException {
+        int size = HttpResponseEncoder.headerSize(statusCode, statusMessage, headers);
+        ByteBuffer buffer = connection != null ? connection.getHeaderBuffer(size) : ByteBuffer.allocate(size);
+        HttpResponseEncoder.encodeHeader(buffer, statusCode, statusMessage, headers);
+        socketOutput.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+    }
+
+    private void appendBuffered(byte[] data) {
+        if (data.length == 0) {
+            return;
+        }
+        if (byteBody != null || fileBody != null) {
+            throw new IllegalStateException("Response body has already been set");
+        }
+        if (body.length() == 0) {
+            byteBody = ByteBuffer.wrap(data);
+            return;
+        }
+        byte[] prefix = body.toString().getBytes(StandardCharsets.UTF_8);
+        body.setLength(0);
+        byteBody = ByteBuffer.allocate(prefix.length + data.length);
+        byteBody.put(prefix).put(data).flip();
+    }
+
+    /**
+     * 发送字节缓冲区或文件区间形式的响应体。阻塞式套接字的输出流不支持零拷贝，文件内容经通道复制写出
+     */
+    private void writeBinaryBody() throws IOException {
+        if (byteBody != null && byteBody.hasArray()) {
+            socketOutput.write(byteBody.array(), byteBody.arrayOffset() + byteBody.position(), byteBody.remaining());
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(socketOutput);
+        if (byteBody != null) {
+            ByteBuffer data = byteBody.duplicate();
+            while (data.hasRemaining()) {
+                target.write(data);
+            }
+            return;
+        }
+        long position = filePosition;
+        long remaining = fileCount;
+        while (remaining > 0) {
+            long n = fileBody.transferTo(position, remaining, target);
+            if (n <= 0) {
+                throw new IOException("文件在发送过程中被截断");
+            }
+            position += n;
+            remaining -= n;
+        }
+    }
+
+    private void closeFileBody() {
+        if (fileBody != null) {
+            try {
+                fileBody.close();
+            } catch (IOException e) {
+                System.err.println("关闭文件失败: " + e.getMessage());
+            }
+            fileBody = null;
+        }
+        byteBody = null;
+    }
+
+    /**
+     * 判断响应后是否保持连接：客户端请求保持连接、应用未要求关闭且未超过单连接最大请求数
+     */
+    private boolean isKeepAlive() {
+        if (connection == null || "close".equalsIgnoreCase(headers.get("Connection"))) {
+            return false;
         }
+        return request.isKeepAlive() && connection.canKeepAlive();
     }
 
     /**
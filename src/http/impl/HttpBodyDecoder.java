@@ -0,0 +1,316 @@
+package http.impl;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * 请求体解码器，按Content-Length或Transfer-Encoding: chunked确定请求体边界
+ * 解码结果有两种去向：保留在读缓冲区中（请求头之后连续存放），或逐段交给BodySink以流的方式处理
+ */
+public class HttpBodyDecoder {
+    private static final int SIZE = 0;
+    private static final int SIZE_EXT = 1;
+    private static final int SIZE_LF = 2;
+    private static final int DATA = 3;
+    private static final int DATA_CR = 4;
+    private static final int DATA_LF = 5;
+    private static final int TRAILER_START = 6;
+    private static final int TRAILER_LINE = 7;
+    private static final int END_LF = 8;
+    private static final int DONE = 9;
+
+    private final boolean chunked;
+    private final long contentLength;
+    private final long maxBodySize;
+    private final int bodyStart;
+    // 下一个待解码的原始字节位置
+    private int readIndex;
+    // 保留在缓冲区中的已解码数据的结束位置
+    private int writeIndex;
+    // 已解码的请求体总长度
+    private long bodyLength = 0;
+    private long chunkRemaining = 0;
+    private boolean sizeDigitSeen = false;
+    private int state;
+
+    private HttpBodyDecoder(int bodyStart, boolean chunked, long contentLength, long maxBodySize) {
+        this.bodyStart = bodyStart;
+        this.readIndex = bodyStart;
+        this.writeIndex = bodyStart;
+        this.chunked = chunked;
+        this.contentLength = contentLength;
+        this.maxBodySize = maxBodySize;
+        this.state = chunked ? SIZE : DATA;
+        this.chunkRemaining = chunked ? 0 : contentLength;
+    }
+
+    /**
+     * 根据请求头创建解码器
+     * @param head 请求头
+     * @param maxBodySize 请求体大小上限
+     * @return 解码器，请求没有请求体时返回null
+     * @throws HttpParseException 请求头不合法（400）、编码不支持（501）或请求体过大（413）
+     */
+    public static HttpBodyDecoder create(HttpRequestHead head, long maxBodySize) throws HttpParseException {
+        String transferEncoding = head.getHeader("Transfer-Encoding");
+        List<String> contentLengthHeaders = head.getHeaderValues("Content-Length");
+        if (transferEncoding != null) {
+            if (!contentLengthHeaders.isEmpty()) {
+                // 同时出现两者可能是请求走私，直接拒绝
+                throw new HttpParseException("Both Transfer-Encoding and Content-Length present");
+            }
+            if (!"chunked".equalsIgnoreCase(transferEncoding.trim())) {
+                throw new HttpParseException("Unsupported Transfer-Encoding: " + transferEncoding, 501);
+            }
+            return new HttpBodyDecoder(head.getHeaderEnd(), true, -1, maxBodySize);
+        }
+        if (contentLengthHeaders.isEmpty()) {
+            return null;
+        }
+        // 多个Content-Length必须完全一致，否则前后两个解析方对请求边界的理解可能不同，构成请求走私
+        String contentLengthHeader = contentLengthHeaders.get(0).trim();
+        for (int i = 1; i < contentLengthHeaders.size(); i++) {
+            if (!contentLengthHeaders.get(i).trim().equals(contentLengthHeader)) {
+                throw new HttpParseException("Conflicting Content-Length headers: " + contentLengthHeaders);
+            }
+        }
+        long length = parseContentLength(contentLengthHeader);
+        if (length > maxBodySize) {
+            throw new HttpParseException("Request body too large", 413);
+        }
+        if (length == 0) {
+            return null;
+        }
+        return new HttpBodyDecoder(head.getHeaderEnd(), false, length, maxBodySize);
+    }
+
+    /**
+     * 解析Content-Length，只接受十进制数字，不接受符号、空白和逗号分隔的列表
+     * @return 长度，超过long范围时返回Long.MAX_VALUE，由调用方按请求体过大处理
+     */
+    private static long parseContentLength(String value) throws HttpParseException {
+        if (value.isEmpty()) {
+            throw new HttpParseException("Invalid Content-Length: " + value);
+        }
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new HttpParseException("Invalid Content-Length: " + value);
+            }
+            length = length > (Long.MAX_VALUE - (c - '0')) / 10 ? Long.MAX_VALUE : length * 10 + (c - '0');
+        }
+        return length;
+    }
+
+    /**
+     * 解码缓冲区中已读取的数据
+     * 未完成时会把尚未解码的原始字节移动到已解码数据之后，使缓冲区剩余空间尽量大
+     * @param buffer 读缓冲区（写模式）
+     * @param sink 不为null时解码出的数据交给sink，否则保留在缓冲区中
+     * @return 请求体是否已全部读取
+     */
+    public boolean decode(ByteBuffer buffer, BodySink sink) throws HttpParseException {
+        int end = buffer.position();
+        while (readIndex < end && state != DONE) {
+            if (state == DATA) {
+                int length = (int) Math.min(chunkRemaining, end - readIndex);
+                emit(buffer, length, sink);
+                chunkRemaining -= length;
+                if (chunkRemaining == 0) {
+                    state = chunked ? DATA_CR : DONE;
+                }
+                continue;
+            }
+            byte b = buffer.get(readIndex);
+            switch (state) {
+                case SIZE:
+                    int digit = Character.digit(b, 16);
+                    if (digit >= 0) {
+                        chunkRemaining = chunkRemaining * 16 + digit;
+                        sizeDigitSeen = true;
+                        if (bodyLength + chunkRemaining > maxBodySize) {
+                            throw new HttpParseException("Request body too large", 413);
+                        }
+                    } else if (!sizeDigitSeen) {
+                        throw new HttpParseException("Invalid chunk size");
+                    } else if (b == ';') {
+                        state = SIZE_EXT;
+                    } else if (b == '\r') {
+                        state = SIZE_LF;
+                    } else if (b == '\n') {
+                        endOfChunkSize();
+                    } else {
+                        throw new HttpParseException("Invalid chunk size");
+                    }
+                    break;
+                case SIZE_EXT:
+                    // 忽略chunk扩展
+                    if (b == '\r') {
+                        state = SIZE_LF;
+                    } else if (b == '\n') {
+                        endOfChunkSize();
+                    }
+                    break;
+                case SIZE_LF:
+                    if (b != '\n') {
+                        throw new HttpParseException("Invalid chunk size line");
+                    }
+                    endOfChunkSize();
+                    break;
+                case DATA_CR:
+                    if (b == '\r') {
+                        state = DATA_LF;
+                    } else if (b == '\n') {
+                        state = SIZE;
+                    } else {
+                        throw new HttpParseException("Invalid chunk data");
+                    }
+                    break;
+                case DATA_LF:
+                    if (b != '\n') {
+                        throw new HttpParseException("Invalid chunk data");
+                    }
+                    state = SIZE;
+                    break;
+                case TRAILER_START:
+                    if (b == '\r') {
+                        state = END_LF;
+                    } else if (b == '\n') {
+                        state = DONE;
+                    } else {
+                        state = TRAILER_LINE;
+                    }
+                    break;
+                case TRAILER_LINE:
+                    // 忽略trailer头
+                    if (b == '\n') {
+                        state = TRAILER_START;
+                    }
+                    break;
+                case END_LF:
+                    if (b != '\n') {
+                        throw new HttpParseException("Invalid end of chunked body");
+                    }
+                    state = DONE;
+                    break;
+                default:
+                    break;
+            }
+            readIndex++;
+        }
+        if (state != DONE) {
+            compact(buffer);
+        }
+        return state == DONE;
+    }
+
+    /**
+     * 丢弃保留在缓冲区中的已解码数据（已转交给流处理），并压缩缓冲区
+     * @param buffer 读缓冲区（写模式）
+     */
+    public void discardDecodedData(ByteBuffer buffer) {
+        writeIndex = bodyStart;
+        compact(buffer);
+    }
+
+    private void endOfChunkSize() {
+        sizeDigitSeen = false;
+        if (chunkRemaining == 0) {
+            state = TRAILER_START;
+        } else {
+            state = DATA;
+        }
+    }
+
+    /**
+     * 输出一段请求体数据
+     */
+    private void emit(ByteBuffer buffer, int length, BodySink sink) {
+        if (sink != null) {
+            sink.write(buffer, readIndex, length);
+        } else if (writeIndex != readIndex) {
+            move(buffer, readIndex, writeIndex, length);
+            writeIndex += length;
+        } else {
+            writeIndex += length;
+        }
+        readIndex += length;
+        bodyLength += length;
+    }
+
+    /**
+     * 把尚未解码的原始字节移动到已解码数据之后
+     */
+    private void compact(ByteBuffer buffer) {
+        int remaining = buffer.position() - readIndex;
+        if (readIndex != writeIndex) {
+            move(buffer, readIndex, writeIndex, remaining);
+            readIndex = writeIndex;
+            buffer.position(writeIndex + remaining);
+        }
+    }
+
+    private static void move(ByteBuffer buffer, int from, int to, int length) {
+        if (length <= 0) {
+            return;
+        }
+        ByteBuffer source = buffer.duplicate();
+        source.limit(from + length);
+        source.position(from);
+        ByteBuffer target = buffer.duplicate();
+        target.clear();
+        target.position(to);
+        target.put(source);
+    }
+
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+     * 获取Content-Length，chunked编码时返回-1
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public long getBodyLength() {
+        return bodyLength;
+    }
+
+    public int getBodyStart() {
+        return bodyStart;
+    }
+
+    /**
+     * 保留在缓冲区中的请求体的结束位置
+     */
+    public int getBodyEnd() {
+        return writeIndex;
+    }
+
+    /**
+     * 请求体之后第一个未读取字节的位置，请求体读取完成后即下一个请求的开始位置
+     */
+    public int getNextRequestStart() {
+        return readIndex;
+    }
+
+    public boolean isComplete() {
+        return state == DONE;
+    }
+
+    /**
+     * 请求体数据的接收者，用于以流的方式处理大请求体
+     */
+    public interface BodySink {
+        /**
+         * 接收一段请求体数据，实现类需在返回前复制数据
+         * @param buffer 读缓冲区
+         * @param offset 数据起始位置
+         * @param length 数据长度
+         */
+        void write(ByteBuffer buffer, int offset, int length);
+    }
+}
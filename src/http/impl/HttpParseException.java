@@ -0,0 +1,38 @@
+package http.impl;
+
+import java.io.IOException;
+
+/**
+ * HTTP请求格式错误异常，携带应返回给客户端的状态码
+ */
+public class HttpParseException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public HttpParseException(String message) {
+        this(message, 400);
+    }
+
+    public HttpParseException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * 获取状态码对应的原因短语
+     */
+    public String getReasonPhrase() {
+        switch (statusCode) {
+            case 400: return "Bad Request";
+            case 413: return "Payload Too Large";
+            case 431: return "Request Header Fields Too Large";
+            case 501: return "Not Implemented";
+            default: return "Error";
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package http.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 由HttpRequestParser解析出的请求头视图
+ * 只保存读缓冲区的引用和各部分的偏移量，在真正访问时才创建字符串
+ */
+public class HttpRequestHead {
+    private static final String[] COMMON_METHODS = {"GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "PATCH"};
+    private static final String[] COMMON_VERSIONS = {"HTTP/1.1", "HTTP/1.0"};
+
+    private final ByteBuffer buffer;
+    private final int methodStart, methodEnd, uriStart, uriEnd, versionStart, versionEnd;
+    private final int[] headerOffsets;
+    private final int headerCount;
+    private final int headerEnd;
+    private final int bodyEnd;
+
+    HttpRequestHead(ByteBuffer buffer, int methodStart, int methodEnd, int uriStart, int uriEnd,
+                    int versionStart, int versionEnd, int[] headerOffsets, int headerCount,
+                    int headerEnd, int bodyEnd) {
+        this.buffer = buffer;
+        this.methodStart = methodStart;
+        this.methodEnd = methodEnd;
+        this.uriStart = uriStart;
+        this.uriEnd = uriEnd;
+        this.versionStart = versionStart;
+        this.versionEnd = versionEnd;
+        this.headerOffsets = headerOffsets;
+        this.headerCount = headerCount;
+        this.headerEnd = headerEnd;
+        this.bodyEnd = bodyEnd;
+    }
+
+    /**
+     * 获取请求方法，常见方法直接返回常量，不创建新字符串
+     */
+    public String getMethod() {
+        return intern(methodStart, methodEnd, COMMON_METHODS);
+    }
+
+    /**
+     * 获取请求URI（包含查询字符串）
+     */
+    public String getUri() {
+        return decode(uriStart, uriEnd, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 获取协议版本，常见版本直接返回常量
+     */
+    public String getVersion() {
+        return intern(versionStart, versionEnd, COMMON_VERSIONS);
+    }
+
+    public int getHeaderCount() {
+        return headerCount;
+    }
+
+    /**
+     * 按名称查找请求头（不区分大小写），只为匹配的请求头创建字符串
+     * @param name 请求头名称
+     * @return 请求头的值，不存在时返回null
+     */
+    public String getHeader(String name) {
+        for (int i = 0; i < headerCount; i++) {
+            int base = i * 4;
+            if (nameEquals(headerOffsets[base], headerOffsets[base + 1], name)) {
+                return decode(headerOffsets[base + 2], headerOffsets[base + 3], StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按名称查找同名的全部请求头（不区分大小写），按出现顺序返回
+     * @param name 请求头名称
+     * @return 请求头的值，不存在时返回空列表
+     */
+    public List<String> getHeaderValues(String name) {
+        List<String> values = new ArrayList<>(1);
+        for (int i = 0; i < headerCount; i++) {
+            int base = i * 4;
+            if (nameEquals(headerOffsets[base], headerOffsets[base + 1], name)) {
+                values.add(decode(headerOffsets[base + 2], headerOffsets[base + 3], StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 获取所有请求头
+     */
+    public Map<String, String> getHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            int base = i * 4;
+            headers.put(decode(headerOffsets[base], headerOffsets[base + 1], StandardCharsets.US_ASCII),
+                    decode(headerOffsets[base + 2], headerOffsets[base + 3], StandardCharsets.UTF_8));
+        }
+        return headers;
+    }
+
+    /**
+     * 获取请求头之后已读取到的请求体，没有时返回null
+     */
+    public String getBody() {
+        if (bodyEnd <= headerEnd) {
+            return null;
+        }
+        return decode(headerEnd, bodyEnd, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 获取请求头之后已读取到的请求体的原始字节
+     */
+    public byte[] getBodyBytes() {
+        if (bodyEnd <= headerEnd) {
+            return new byte[0];
+        }
+        return copy(headerEnd, bodyEnd);
+    }
+
+    /**
+     * 请求头结束位置（空行之后）
+     */
+    public int getHeaderEnd() {
+        return headerEnd;
+    }
+
+    /**
+     * 获取原始请求数据
+     */
+    public String getRequestData() {
+        return decode(methodStart, bodyEnd, StandardCharsets.UTF_8);
+    }
+
+    private boolean nameEquals(int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            int a = buffer.get(start + i);
+            int b = name.charAt(i);
+            if (a != b && toLowerCase(a) != toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String intern(int start, int end, String[] candidates) {
+        for (String candidate : candidates) {
+            if (matches(start, end, candidate)) {
+                return candidate;
+            }
+        }
+        return decode(start, end, StandardCharsets.US_ASCII);
+    }
+
+    private boolean matches(int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer.get(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int start, int end, Charset charset) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, charset);
+        }
+        // 直接内存无法访问底层数组，通过副本批量复制，不改变原缓冲区的位置
+        return new String(copy(start, end), charset);
+    }
+
+    private byte[] copy(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer source = buffer.duplicate();
+        source.position(start);
+        source.get(bytes);
+        return bytes;
+    }
+
+    private static int toLowerCase(int c) {
+        return c >= 'A' && c <= 'Z' ? c + 32 : c;
+    }
+}
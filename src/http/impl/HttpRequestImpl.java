@@ -1,6 +1,10 @@
 package http.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,6 +20,14 @@ public class HttpRequestImpl implements http.HttpRequest {
     private String body;
     private String requestData;
     private Object source;
+    // 字节级解析得到的请求头，请求头和请求体在访问时才转换为字符串
+    private HttpRequestHead head;
+    private boolean bodyLoaded = false;
+    // 请求体是否由setBody显式设置
+    private boolean bodyOverridden = false;
+    private boolean parametersParsed = false;
+    // 以流的方式读取的请求体，为null时请求体已完整保存在内存中
+    private InputStream inputStream;
 
     public HttpRequestImpl(String requestData, Object source)  {
         this.requestData = requestData;
@@ -28,11 +40,30 @@ public class HttpRequestImpl implements http.HttpRequest {
         this.body = null;
         this.source = source;
     }
+
+    /**
+     * 根据字节级解析结果创建请求，请求行立即解析，请求头、参数和请求体延迟到访问时解析
+     * @param head 请求头
+     * @param source 请求来源
+     */
+    public HttpRequestImpl(HttpRequestHead head, Object source) {
+        this.head = head;
+        this.source = source;
+        this.method = head.getMethod();
+        this.protocol = head.getVersion();
+        String uri = head.getUri();
+        int queryIndex = uri.indexOf('?');
+        this.url = queryIndex == -1 ? uri : uri.substring(0, queryIndex);
+    }
+
     public Object getSource() {
         return source;
     }
 
     public String getRequestData() {
+        if (requestData == null && head != null) {
+            requestData = head.getRequestData();
+        }
         return requestData;
     }
 
@@ -58,7 +89,22 @@ public class HttpRequestImpl implements http.HttpRequest {
 
     @Override
     public String getHeader(String name) {
-        return headers.get(name);
+        String value = headers.get(name);
+        if (value == null && head != null && name != null) {
+            value = head.getHeader(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        if (value == null && name != null) {
+            // 请求头名称不区分大小写
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                if (name.equalsIgnoreCase(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return value;
     }
 
     @Override
@@ -68,6 +114,11 @@ public class HttpRequestImpl implements http.HttpRequest {
 
     @Override
     public Map<String, String> getHeaders() {
+        if (head != null) {
+            Map<String, String> allHeaders = new HashMap<>(head.getHeaders());
+            allHeaders.putAll(headers);
+            return allHeaders;
+        }
         return new HashMap<>(headers);
     }
 
@@ -78,6 +129,7 @@ public class HttpRequestImpl implements http.HttpRequest {
 
     @Override
     public String getParameter(String name) {
+        parseParametersIfNeeded();
         return parameters.get(name);
     }
 
@@ -88,6 +140,7 @@ public class HttpRequestImpl implements http.HttpRequest {
 
     @Override
     public Map<String, String> getParameters() {
+        parseParametersIfNeeded();
         return new HashMap<>(parameters);
     }
 
@@ -98,12 +151,55 @@ public class HttpRequestImpl implements http.HttpRequest {
 
     @Override
     public String getBody() {
+        if (!bodyLoaded && head != null) {
+            bodyLoaded = true;
+            if (body == null) {
+                body = inputStream != null ? readFully(inputStream) : head.getBody();
+            }
+        }
         return body;
     }
 
     @Override
     public void setBody(String body) {
       this.body = body;
+      this.bodyLoaded = true;
+      this.bodyOverridden = true;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        if (inputStream != null) {
+            return inputStream;
+        }
+        if (head != null && !bodyOverridden) {
+            // 直接读取原始字节，避免二进制请求体经过字符串转换后被破坏
+            return new ByteArrayInputStream(head.getBodyBytes());
+        }
+        String requestBody = getBody();
+        byte[] bytes = requestBody == null ? new byte[0] : requestBody.getBytes(StandardCharsets.UTF_8);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    public void setInputStream(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * 读取流式请求体的全部内容
+     */
+    private static String readFully(InputStream in) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        try {
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                out.write(chunk, 0, n);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("读取请求体失败: " + e.getMessage(), e);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
     }
 
     public String getProtocol() {
@@ -112,11 +208,20 @@ public class HttpRequestImpl implements http.HttpRequest {
 
     @Override
     public boolean isKeepAlive() {
-        String connectionHeader = headers.get("Connection");
+        String connectionHeader = getHeader("Connection");
         if (connectionHeader != null) {
-            return "keep-alive".equalsIgnoreCase(connectionHeader);
+            // Connection头可能包含多个token，如"keep-alive, Upgrade"
+            for (String token : connectionHeader.split(",")) {
+                String value = token.trim();
+                if ("close".equalsIgnoreCase(value)) {
+                    return false;
+                }
+                if ("keep-alive".equalsIgnoreCase(value)) {
+                    return true;
+                }
+            }
         }
-        // HTTP/1.1默认是keep-alive
+        // HTTP/1.1默认是keep-alive，HTTP/1.0默认关闭
         return "HTTP/1.1".equals(protocol);
     }
 
@@ -126,7 +231,49 @@ public class HttpRequestImpl implements http.HttpRequest {
 
     @Override
     public boolean hasHandled() {
-        return false;
+        // 已经过字节级解析的请求无需再经过RequestParse过滤器
+        return head != null;
+    }
+
+    /**
+     * 首次访问参数时解析URL查询字符串和表单请求体
+     */
+    private void parseParametersIfNeeded() {
+        if (parametersParsed || head == null) {
+            return;
+        }
+        parametersParsed = true;
+        Map<String, String> explicitParameters = new HashMap<>(parameters);
+        String uri = head.getUri();
+        int queryIndex = uri.indexOf('?');
+        if (queryIndex != -1) {
+            parseParameters(uri.substring(queryIndex + 1));
+        }
+        // 流式读取的大请求体不作为表单参数解析，避免整体读入内存
+        String contentType = getHeader("Content-Type");
+        if ("POST".equals(method) && inputStream == null
+                && contentType != null && contentType.contains("application/x-www-form-urlencoded")) {
+            String requestBody = getBody();
+            if (requestBody != null && !requestBody.isEmpty()) {
+                parseParameters(requestBody);
+            }
+        }
+        // 显式设置的参数优先
+        parameters.putAll(explicitParameters);
+    }
+
+    /**
+     * 解析参数字符串
+     */
+    private void parseParameters(String paramString) {
+        for (String pair : paramString.split("&")) {
+            int equalsIndex = pair.indexOf('=');
+            if (equalsIndex != -1) {
+                parameters.put(pair.substring(0, equalsIndex), pair.substring(equalsIndex + 1));
+            } else if (!pair.isEmpty()) {
+                parameters.put(pair, "");
+            }
+        }
     }
 
     @Override
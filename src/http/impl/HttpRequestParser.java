@@ -0,0 +1,207 @@
+package http.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 基于状态机的增量HTTP/1.1请求头解析器
+ * 直接扫描ByteBuffer中的字节，只记录请求行和各请求头在缓冲区中的偏移量，不复制数据；
+ * 数据不完整时保存当前状态，下次读取到更多数据后从上次停止的位置继续解析
+ */
+public class HttpRequestParser {
+    private static final int START = 0;
+    private static final int METHOD = 1;
+    private static final int URI = 2;
+    private static final int VERSION = 3;
+    private static final int REQUEST_LINE_LF = 4;
+    private static final int HEADER_LINE_START = 5;
+    private static final int HEADER_NAME = 6;
+    private static final int HEADER_VALUE_START = 7;
+    private static final int HEADER_VALUE = 8;
+    private static final int HEADER_LINE_LF = 9;
+    private static final int HEADERS_END_LF = 10;
+    private static final int DONE = 11;
+
+    private final int maxHeaderCount;
+    private int state = START;
+    // 下一个要扫描的字节位置
+    private int index = 0;
+    private int methodStart, methodEnd, uriStart, uriEnd, versionStart, versionEnd;
+    private int nameStart, nameEnd, valueStart, valueEnd;
+    // 每个请求头占4个元素：名称开始、名称结束、值开始、值结束
+    private int[] headerOffsets = new int[32];
+    private int headerCount = 0;
+    private int headerEnd = -1;
+
+    public HttpRequestParser(int maxHeaderCount) {
+        this.maxHeaderCount = maxHeaderCount;
+    }
+
+    /**
+     * 从上次停止的位置继续解析，扫描到缓冲区当前写入位置为止
+     * @param buffer 读缓冲区（写模式，偏移量相对于缓冲区起始位置）
+     * @return 请求头是否已完整
+     * @throws HttpParseException 请求格式错误
+     */
+    public boolean parse(ByteBuffer buffer) throws HttpParseException {
+        int end = buffer.position();
+        while (index < end && state != DONE) {
+            byte b = buffer.get(index);
+            switch (state) {
+                case START:
+                    // 忽略请求之前多余的空行
+                    if (b != '\r' && b != '\n') {
+                        methodStart = index;
+                        state = METHOD;
+                    }
+                    break;
+                case METHOD:
+                    if (b == ' ') {
+                        methodEnd = index;
+                        uriStart = index + 1;
+                        state = URI;
+                    } else if (!isTokenChar(b)) {
+                        throw new HttpParseException("Invalid request method");
+                    }
+                    break;
+                case URI:
+                    if (b == ' ') {
+                        uriEnd = index;
+                        versionStart = index + 1;
+                        state = VERSION;
+                    } else if (b == '\r' || b == '\n') {
+                        throw new HttpParseException("Invalid request line");
+                    }
+                    break;
+                case VERSION:
+                    if (b == '\r') {
+                        versionEnd = index;
+                        state = REQUEST_LINE_LF;
+                    } else if (b == '\n') {
+                        versionEnd = index;
+                        state = HEADER_LINE_START;
+                    }
+                    break;
+                case REQUEST_LINE_LF:
+                    if (b != '\n') {
+                        throw new HttpParseException("Invalid request line");
+                    }
+                    state = HEADER_LINE_START;
+                    break;
+                case HEADER_LINE_START:
+                    if (b == '\r') {
+                        state = HEADERS_END_LF;
+                    } else if (b == '\n') {
+                        finish();
+                    } else if (isTokenChar(b)) {
+                        nameStart = index;
+                        state = HEADER_NAME;
+                    } else {
+                        throw new HttpParseException("Invalid header line");
+                    }
+                    break;
+                case HEADER_NAME:
+                    if (b == ':') {
+                        nameEnd = index;
+                        state = HEADER_VALUE_START;
+                    } else if (!isTokenChar(b)) {
+                        throw new HttpParseException("Invalid header name");
+                    }
+                    break;
+                case HEADER_VALUE_START:
+                    if (b == ' ' || b == '\t') {
+                        break;
+                    }
+                    valueStart = index;
+                    valueEnd = index;
+                    state = HEADER_VALUE;
+                    // 当前字节属于值，交给HEADER_VALUE状态处理
+                    continue;
+                case HEADER_VALUE:
+                    if (b == '\r' || b == '\n') {
+                        addHeader();
+                        state = b == '\r' ? HEADER_LINE_LF : HEADER_LINE_START;
+                    } else if (b != ' ' && b != '\t') {
+                        // 记录最后一个非空白字符之后的位置，相当于trim
+                        valueEnd = index + 1;
+                    }
+                    break;
+                case HEADER_LINE_LF:
+                    if (b != '\n') {
+                        throw new HttpParseException("Invalid header line");
+                    }
+                    state = HEADER_LINE_START;
+                    break;
+                case HEADERS_END_LF:
+                    if (b != '\n') {
+                        throw new HttpParseException("Invalid end of headers");
+                    }
+                    finish();
+                    break;
+                default:
+                    break;
+            }
+            index++;
+        }
+        return state == DONE;
+    }
+
+    /**
+     * 获取解析结果，只能在parse返回true之后调用
+     * @param buffer 读缓冲区
+     * @param bodyEnd 已读取数据的结束位置
+     * @return 请求头
+     */
+    public HttpRequestHead getRequestHead(ByteBuffer buffer, int bodyEnd) {
+        return new HttpRequestHead(buffer, methodStart, methodEnd, uriStart, uriEnd, versionStart, versionEnd,
+                Arrays.copyOf(headerOffsets, headerCount * 4), headerCount, headerEnd, bodyEnd);
+    }
+
+    /**
+     * 获取请求头结束位置（空行之后），未解析完成时返回-1
+     */
+    public int getHeaderEnd() {
+        return headerEnd;
+    }
+
+    /**
+     * 重置解析器，准备解析下一个请求
+     * @param offset 下一个请求在缓冲区中的起始位置
+     */
+    public void reset(int offset) {
+        state = START;
+        index = offset;
+        headerCount = 0;
+        headerEnd = -1;
+    }
+
+    public void reset() {
+        reset(0);
+    }
+
+    private void finish() {
+        headerEnd = index + 1;
+        state = DONE;
+    }
+
+    private void addHeader() throws HttpParseException {
+        if (headerCount >= maxHeaderCount) {
+            throw new HttpParseException("Too many headers", 431);
+        }
+        int base = headerCount * 4;
+        if (base + 4 > headerOffsets.length) {
+            headerOffsets = Arrays.copyOf(headerOffsets, headerOffsets.length * 2);
+        }
+        headerOffsets[base] = nameStart;
+        headerOffsets[base + 1] = nameEnd;
+        headerOffsets[base + 2] = valueStart;
+        headerOffsets[base + 3] = valueEnd;
+        headerCount++;
+    }
+
+    private static boolean isTokenChar(byte b) {
+        return b > ' ' && b < 127 && b != ':' && b != '(' && b != ')' && b != ',' && b != ';'
+                && b != '<' && b != '>' && b != '@' && b != '[' && b != ']' && b != '\\'
+                && b != '"' && b != '/' && b != '?' && b != '=' && b != '{' && b != '}';
+    }
+}
@@ -0,0 +1,256 @@
+package http.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 响应的字节级编码器：把响应行、响应头和字符串响应体直接编码到ByteBuffer中
+ * 常用状态码的响应行和常用响应头名称预先编码为字节数组，Date响应头每秒只格式化一次；
+ * 其余的响应头和响应体按字符逐个编码为UTF-8，不产生中间的String和byte[]
+ */
+public final class HttpResponseEncoder {
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] HEADER_SEPARATOR = {':', ' '};
+    private static final int[] COMMON_STATUS_CODES = {
+            100, 101, 200, 201, 202, 204, 206, 301, 302, 303, 304, 307, 308,
+            400, 401, 403, 404, 405, 406, 408, 409, 411, 412, 413, 414, 415, 416, 417, 429, 431,
+            500, 501, 502, 503, 504, 505
+    };
+    private static final String[] COMMON_HEADER_NAMES = {
+            "Server", "Date", "Content-Type", "Content-Length", "Connection", "Transfer-Encoding",
+            "Content-Encoding", "Vary", "ETag", "Last-Modified", "Accept-Ranges", "Content-Range",
+            "Cache-Control", "Location", "Set-Cookie", "Retry-After", "Allow", "Expires"
+    };
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    // 按状态码下标的预编码响应行，如"HTTP/1.1 200 OK\r\n"
+    private static final byte[][] STATUS_LINES = new byte[600][];
+    private static final String[] REASON_PHRASES = new String[600];
+    // 预编码的响应头名称，包含冒号和空格
+    private static final Map<String, byte[]> HEADER_NAMES = new HashMap<>();
+    private static final byte[] DATE_HEADER = "Date: ".getBytes(StandardCharsets.ISO_8859_1);
+
+    // 当前秒的Date响应头的值
+    private static volatile CachedDate cachedDate = new CachedDate(-1, new byte[0]);
+
+    static {
+        for (int code : COMMON_STATUS_CODES) {
+            String reason = reasonPhrase(code);
+            REASON_PHRASES[code] = reason;
+            STATUS_LINES[code] = ("HTTP/1.1 " + code + " " + reason + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        }
+        for (String name : COMMON_HEADER_NAMES) {
+            HEADER_NAMES.put(name, (name + ": ").getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private HttpResponseEncoder() {
+    }
+
+    /**
+     * 判断状态码的响应是否不能带响应体：1xx、204和304响应既不发送响应体，也不发送Content-Length
+     */
+    public static boolean isBodiless(int statusCode) {
+        return statusCode / 100 == 1 || statusCode == 204 || statusCode == 304;
+    }
+
+    /**
+     * 根据状态码获取状态消息
+     */
+    public static String getStatusMessage(int statusCode) {
+        if (statusCode >= 0 && statusCode < REASON_PHRASES.length && REASON_PHRASES[statusCode] != null) {
+            return REASON_PHRASES[statusCode];
+        }
+        return reasonPhrase(statusCode);
+    }
+
+    private static String reasonPhrase(int statusCode) {
+        switch (statusCode) {
+            case 100: return "Continue";
+            case 101: return "Switching Protocols";
+            case 200: return "OK";
+            case 201: return "Created";
+            case 202: return "Accepted";
+            case 204: return "No Content";
+            case 206: return "Partial Content";
+            case 301: return "Moved Permanently";
+            case 302: return "Found";
+            case 303: return "See Other";
+            case 304: return "Not Modified";
+            case 307: return "Temporary Redirect";
+            case 308: return "Permanent Redirect";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 406: return "Not Acceptable";
+            case 408: return "Request Timeout";
+            case 409: return "Conflict";
+            case 411: return "Length Required";
+            case 412: return "Precondition Failed";
+            case 413: return "Payload Too Large";
+            case 414: return "URI Too Long";
+            case 415: return "Unsupported Media Type";
+            case 416: return "Range Not Satisfiable";
+            case 417: return "Expectation Failed";
+            case 429: return "Too Many Requests";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            case 505: return "HTTP Version Not Supported";
+            default: return "Unknown Status";
+        }
+    }
+
+    /**
+     * 计算响应行和响应头编码后的字节数，包括自动添加的Date响应头和结尾的空行
+     */
+    public static int headerSize(int statusCode, String statusMessage, Map<String, String> headers) {
+        byte[] statusLine = cachedStatusLine(statusCode, statusMessage);
+        int size = statusLine != null ? statusLine.length
+                : 9 + String.valueOf(statusCode).length() + 1 + utf8Length(statusMessage) + 2;
+        if (!headers.containsKey("Date")) {
+            size += DATE_HEADER.length + currentDate().length + 2;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            size += utf8Length(entry.getKey()) + 2 + utf8Length(entry.getValue()) + 2;
+        }
+        return size + 2;
+    }
+
+    /**
+     * 把响应行和响应头编码到缓冲区，响应头中没有Date时自动添加
+     * @param out 写模式的缓冲区，剩余空间不少于headerSize返回的字节数
+     */
+    public static void encodeHeader(ByteBuffer out, int statusCode, String statusMessage, Map<String, String> headers) {
+        byte[] statusLine = cachedStatusLine(statusCode, statusMessage);
+        if (statusLine != null) {
+            out.put(statusLine);
+        } else {
+            putAscii(out, "HTTP/1.1 ");
+            putAscii(out, String.valueOf(statusCode));
+            out.put((byte) ' ');
+            putUtf8(out, statusMessage);
+            out.put(CRLF);
+        }
+        if (!headers.containsKey("Date")) {
+            out.put(DATE_HEADER).put(currentDate()).put(CRLF);
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            byte[] name = HEADER_NAMES.get(entry.getKey());
+            if (name != null) {
+                out.put(name);
+            } else {
+                putUtf8(out, entry.getKey());
+                out.put(HEADER_SEPARATOR);
+            }
+            putUtf8(out, entry.getValue());
+            out.put(CRLF);
+        }
+        // 空行分隔响应头和响应体
+        out.put(CRLF);
+    }
+
+    private static byte[] cachedStatusLine(int statusCode, String statusMessage) {
+        if (statusCode < 0 || statusCode >= STATUS_LINES.length || STATUS_LINES[statusCode] == null) {
+            return null;
+        }
+        // 状态消息被自定义时不能使用预编码的响应行
+        return REASON_PHRASES[statusCode].equals(statusMessage) ? STATUS_LINES[statusCode] : null;
+    }
+
+    /**
+     * 获取当前时间的Date响应头的值，同一秒内返回同一个数组，调用者不能修改
+     */
+    public static byte[] currentDate() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedDate date = cachedDate;
+        if (date.second != second) {
+            // 多个线程同时更新时结果相同，不需要加锁
+            date = new CachedDate(second, HTTP_DATE.format(Instant.ofEpochSecond(second))
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            cachedDate = date;
+        }
+        return date.value;
+    }
+
+    /**
+     * 计算字符序列编码为UTF-8后的字节数
+     */
+    public static int utf8Length(CharSequence text) {
+        int length = text.length();
+        int size = length;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    size += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    // 代理对的两个char共编码为4个字节
+                    size += 2;
+                    i++;
+                } else {
+                    size += 2;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 把字符序列按UTF-8编码写入缓冲区，不完整的代理对编码为替换字符U+FFFD
+     */
+    public static void putUtf8(ByteBuffer out, CharSequence text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xc0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    out.put((byte) (0xf0 | (codePoint >> 18)));
+                    out.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                    out.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                    out.put((byte) (0x80 | (codePoint & 0x3f)));
+                } else {
+                    out.put((byte) 0xef).put((byte) 0xbf).put((byte) 0xbd);
+                }
+            } else {
+                out.put((byte) (0xe0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                out.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    private static void putAscii(ByteBuffer out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            out.put((byte) text.charAt(i));
+        }
+    }
+
+    private static final class CachedDate {
+        private final long second;
+        private final byte[] value;
+
+        private CachedDate(long second, byte[] value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
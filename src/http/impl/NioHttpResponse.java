@@ -1,78 +1,129 @@
 package http.impl;
 
-import http.HttpResponse;
+import http.HttpRequest;
+import server.impl.NioConnection;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 基于NIO的HTTP响应实现类
  */
-public class NioHttpResponse implements HttpResponse {
-    private int statusCode = 200;
-    private String statusMessage = "OK";
-    private Map<String, String> headers = new HashMap<>();
-    private StringBuilder body = new StringBuilder();
-    private SocketChannel clientChannel;
-    private boolean finished = false;
-    private String requestData;
-
-    public NioHttpResponse(SocketChannel clientChannel, String requestData) {
-        this.clientChannel = clientChannel;
-        this.requestData = requestData;
-        // 设置默认响应头
+public class NioHttpResponse extends AbstractHttpResponse {
+    private static final ByteBuffer EMPTY_BODY = ByteBuffer.allocate(0);
+    // 流式响应提交时确定的是否保持连接
+    private boolean streamKeepAlive;
+    private NioConnection connection;
+    private HttpRequest request;
+
+    public NioHttpResponse(NioConnection connection, HttpRequest request) {
+        this.connection = connection;
+        this.request = request;
+        // 默认响应头由父类设置，这里替换服务器名称
         setHeader("Server", "MyNioTomcat/1.0");
-        setHeader("Content-Type", "text/html;charset=UTF-8");
     }
 
     @Override
-    public void setStatusCode(int statusCode) {
-        this.statusCode = statusCode;
-        this.statusMessage = getStatusMessage(statusCode);
+    public void write(byte[] data) {
+        if (finished) {
+            throw new IllegalStateException("Response has already been finished");
+        }
+        // 写入输出流，数据超过缓冲区后以chunked编码边写边发送
+        try {
+            getOutputStream().write(data);
+        } catch (IOException e) {
+            System.err.println("写出响应数据失败: " + e.getMessage());
+        }
     }
 
     @Override
-    public int getStatusCode() {
-        return statusCode;
-    }
+    public OutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ResponseOutputStream(connection.getResponseBufferSize()) {
+                @Override
+                protected boolean commit() throws IOException {
+                    return commitStream();
+                }
 
-    @Override
-    public void setHeader(String name, String value) {
-        headers.put(name, value);
-    }
+                @Override
+                protected ByteBuffer allocate(int capacity) {
+                    return connection.getBufferPool().acquire(capacity);
+                }
 
-    @Override
-    public String getHeader(String name) {
-        return headers.get(name);
-    }
+                @Override
+                protected void send(ByteBuffer data) throws IOException {
+                    sendStreamData(data);
+                }
 
-    @Override
-    public Map<String, String> getHeaders() {
-        return new HashMap<>(headers);
+                @Override
+                public void close() {
+                    finish();
+                }
+            };
+            // 之前设置的响应体作为输出流的开头
+            if (body.length() > 0 && byteBody == null && fileBody == null) {
+                byte[] existing = body.toString().getBytes(StandardCharsets.UTF_8);
+                body.setLength(0);
+                try {
+                    outputStream.write(existing);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return outputStream;
     }
 
-    @Override
-    public void setBody(String body) {
-        this.body.setLength(0);
-        this.body.append(body);
+    /**
+     * 提交流式响应：发送响应头。没有设置Content-Length时使用chunked编码，
+     * HTTP/1.0客户端不支持chunked编码，以关闭连接表示响应结束
+     * @return 是否使用chunked编码
+     */
+    private boolean commitStream() throws IOException {
+        streamKeepAlive = isKeepAlive();
+        if (HttpResponseEncoder.isBodiless(statusCode)) {
+            // 没有响应体的状态码不使用chunked编码，写入的数据全部丢弃
+            headers.remove("Content-Length");
+            setKeepAlive(streamKeepAlive);
+            connection.writePooled(request, encodeHeader());
+            return false;
+        }
+        boolean chunked = headers.get("Content-Length") == null;
+        if (chunked && !isHttp11()) {
+            chunked = false;
+            streamKeepAlive = false;
+        }
+        setKeepAlive(streamKeepAlive);
+        if (chunked) {
+            setHeader("Transfer-Encoding", "chunked");
+        }
+        connection.writePooled(request, encodeHeader());
+        return chunked;
     }
 
-    @Override
-    public String getBody() {
-        return body.toString();
+    /**
+     * 发送流式响应的数据，连接上未写出的数据过多时等待，HEAD请求和没有响应体的状态码不发送
+     */
+    private void sendStreamData(ByteBuffer data) throws IOException {
+        if (isBodyOmitted()) {
+            connection.getBufferPool().release(data);
+            return;
+        }
+        try {
+            connection.awaitWritable();
+        } catch (IOException e) {
+            connection.getBufferPool().release(data);
+            throw e;
+        }
+        connection.writePooled(request, data);
     }
 
-    @Override
-    public void write(byte[] data) {
-        if (finished) {
-            throw new IllegalStateException("Response has already been finished");
-        }
-        // 对于NIO实现，write方法直接写入到body中
-        body.append(new String(data, StandardCharsets.UTF_8));
+    private boolean isHttp11() {
+        return request instanceof HttpRequestImpl && "HTTP/1.1".equals(((HttpRequestImpl) request).getProtocol());
     }
 
     @Override
@@ -80,66 +131,191 @@ public class NioHttpResponse implements HttpResponse {
         if (finished) {
             return;
         }
+        if (isCommitted()) {
+            finishStream();
+            return;
+        }
+        boolean keepAlive = isKeepAlive();
         try {
-            // 构建完整的HTTP响应
-            String response = buildResponse();
-            
-            // 使用NIO方式发送响应
-            sendResponse(response);
-            
+            setKeepAlive(keepAlive);
+            if (outputStream != null) {
+                // 输出流中的数据未超过缓冲区，作为完整响应体发送
+                appendBuffered(outputStream.takeBuffered());
+            }
+            boolean bodyPooled = false;
+            if (fileBody == null && byteBody == null) {
+                // 字符串响应体直接编码到池中的Buffer，不经过中间的String和byte[]
+                byteBody = encodeBody();
+                bodyPooled = byteBody.capacity() > 0;
+            }
+            if (fileBody == null) {
+                // 压缩阶段：满足条件时以压缩后的字节代替原响应体，文件区间以零拷贝方式原样发送
+                ByteBuffer compressed = ResponseCompressor.getInstance().compress(request, this, byteBody);
+                if (compressed != null) {
+                    if (bodyPooled) {
+                        connection.getBufferPool().release(byteBody);
+                        bodyPooled = false;
+                    }
+                    byteBody = compressed;
+                }
+            }
+            sendResponse(bodyPooled);
+
             finished = true;
             System.out.println("响应发送完成: " + statusCode + " " + statusMessage);
             
         } catch (IOException e) {
             System.err.println("发送响应失败: " + e.getMessage());
-            e.printStackTrace();
             // 标记为已完成，避免重复处理
             finished = true;
+            keepAlive = false;
+        } finally {
+            fileBody = null;
+            byteBody = null;
         }
+        // 响应发送完成后，关闭连接或恢复读取下一个请求
+        connection.completeResponse(request, keepAlive);
     }
 
     /**
-     * 构建完整的HTTP响应字符串
+     * 结束已提交的流式响应
      */
-    private String buildResponse() {
-        // 设置Content-Length
-        byte[] bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
-        setHeader("Content-Length", String.valueOf(bodyBytes.length));
-
-        // 构建响应
-        StringBuilder responseBuilder = new StringBuilder();
-        // 响应行
-        responseBuilder.append("HTTP/1.1 ").append(statusCode).append(" ").append(statusMessage).append("\r\n");
-        // 响应头
-        for (Map.Entry<String, String> entry : headers.entrySet()) {
-            responseBuilder.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
-        }
-        // 空行分隔响应头和响应体
-        responseBuilder.append("\r\n");
-        // 响应体
-        responseBuilder.append(body.toString());
-        
-        return responseBuilder.toString();
+    private void finishStream() {
+        boolean keepAlive = streamKeepAlive;
+        try {
+            outputStream.finishStream();
+            System.out.println("流式响应发送完成: " + statusCode + " " + statusMessage);
+        } catch (IOException e) {
+            System.err.println("发送响应失败: " + e.getMessage());
+            keepAlive = false;
+        }
+        finished = true;
+        connection.completeResponse(request, keepAlive);
+    }
+
+    private void appendBuffered(byte[] data) {
+        if (data.length == 0) {
+            return;
+        }
+        if (byteBody != null || fileBody != null) {
+            throw new IllegalStateException("Response body has already been set");
+        }
+        if (body.length() == 0) {
+            byteBody = ByteBuffer.wrap(data);
+            return;
+        }
+        byte[] prefix = body.toString().getBytes(StandardCharsets.UTF_8);
+        body.setLength(0);
+        byteBody = ByteBuffer.allocate(prefix.length + data.length);
+        byteBody.put(prefix).put(data).flip();
+    }
+
+    @Override
+    public void abort() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (outputStream != null) {
+            outputStream.abort();
+        }
+        if (fileBody != null) {
+            try {
+                fileBody.close();
+            } catch (IOException e) {
+                System.err.println("关闭文件失败: " + e.getMessage());
+            }
+            fileBody = null;
+        }
+        connection.completeResponse(request, false);
     }
 
     /**
-     * 使用NIO方式发送响应
+     * 发送响应：响应头编码到池中的Buffer，与响应体分别交给连接，由事件循环以一次聚集写出；
+     * 文件区间以零拷贝方式发送。HEAD请求和没有响应体的状态码只发送响应头
+     * @param bodyPooled 响应体是否从Buffer池借出
      */
-    private void sendResponse(String response) throws IOException {
-        if (clientChannel == null || !clientChannel.isOpen()) {
-            throw new IOException("客户端通道已关闭");
-        }
-
-        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
-        ByteBuffer buffer = ByteBuffer.wrap(responseBytes);
-        
-        // 发送响应数据
-        while (buffer.hasRemaining()) {
-            int bytesWritten = clientChannel.write(buffer);
-            if (bytesWritten == -1) {
-                throw new IOException("写入响应时连接已关闭");
+    private void sendResponse(boolean bodyPooled) throws IOException {
+        long length = fileBody != null ? fileCount : byteBody.remaining();
+        if (HttpResponseEncoder.isBodiless(statusCode)) {
+            headers.remove("Content-Length");
+        } else {
+            setHeader("Content-Length", String.valueOf(length));
+        }
+        boolean sendBody = !isBodyOmitted() && length > 0;
+        try {
+            connection.writePooled(request, encodeHeader());
+        } catch (IOException e) {
+            sendBody = false;
+            throw e;
+        } finally {
+            if (!sendBody) {
+                if (fileBody != null) {
+                    fileBody.close();
+                }
+                if (bodyPooled) {
+                    connection.getBufferPool().release(byteBody);
+                }
             }
         }
+        if (!sendBody) {
+            return;
+        }
+        if (fileBody != null) {
+            connection.writeFile(request, fileBody, filePosition, fileCount);
+        } else if (bodyPooled) {
+            connection.writePooled(request, byteBody);
+        } else {
+            // 复制缓冲区的位置信息，共享的映射缓冲区可以被多个响应同时发送
+            connection.write(request, byteBody.duplicate());
+        }
+    }
+
+    /**
+     * 把字符串响应体按UTF-8编码到池中借出的Buffer
+     * @return 读模式的Buffer，响应体为空时返回空的Buffer
+     */
+    private ByteBuffer encodeBody() {
+        if (body.length() == 0) {
+            return EMPTY_BODY;
+        }
+        ByteBuffer buffer = connection.getBufferPool().acquire(HttpResponseEncoder.utf8Length(body));
+        HttpResponseEncoder.putUtf8(buffer, body);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 把响应行和响应头编码到池中借出的Buffer
+     * @return 读模式的Buffer
+     */
+    private ByteBuffer encodeHeader() {
+        ByteBuffer buffer = connection.getBufferPool().acquire(
+                HttpResponseEncoder.headerSize(statusCode, statusMessage, headers));
+        HttpResponseEncoder.encodeHeader(buffer, statusCode, statusMessage, headers);
+        buffer.flip();
+        return buffer;
+    }
+
+    private boolean isHeadRequest() {
+        return request != null && "HEAD".equals(request.getMethod());
+    }
+
+    /**
+     * HEAD请求和没有响应体的状态码只发送响应头
+     */
+    private boolean isBodyOmitted() {
+        return isHeadRequest() || HttpResponseEncoder.isBodiless(statusCode);
+    }
+
+    /**
+     * 判断响应后是否保持连接：客户端请求保持连接、应用未要求关闭且未超过单连接最大请求数
+     */
+    private boolean isKeepAlive() {
+        if ("close".equalsIgnoreCase(headers.get("Connection"))) {
+            return false;
+        }
+        return request != null && request.isKeepAlive() && connection.canKeepAlive(request);
     }
 
     /**
@@ -153,20 +329,6 @@ public class NioHttpResponse implements HttpResponse {
         }
     }
 
-    /**
-     * 根据状态码获取状态消息
-     */
-    private String getStatusMessage(int statusCode) {
-        switch (statusCode) {
-            case 200: return "OK";
-            case 400: return "Bad Request";
-            case 404: return "Not Found";
-            case 500: return "Internal Server Error";
-            case 405: return "Method Not Allowed";
-            default: return "Unknown Status";
-        }
-    }
-
     /**
      * 发送错误响应
      */
@@ -189,6 +351,6 @@ public class NioHttpResponse implements HttpResponse {
      * 获取客户端通道
      */
     public SocketChannel getClientChannel() {
-        return clientChannel;
+        return connection.getChannel();
     }
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+package http.impl;
+
+import http.HttpRequest;
+import http.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 响应压缩阶段：响应写出前按请求的Accept-Encoding协商gzip或deflate编码并压缩响应体
+ * 只压缩状态码为200、不小于最小长度且Content-Type在允许列表中的响应；已设置Content-Encoding
+ * （如静态资源的预压缩文件）或Content-Range的响应原样发送。声明了Accept-Ranges的响应（如静态资源）
+ * 的字节必须与ETag一一对应，不做动态压缩，压缩的表示由预压缩文件提供，映射的文件内容也不会被复制到堆上。
+ * Deflater使用本地内存，创建和回收代价较高，用完后重置放回池中复用
+ */
+public class ResponseCompressor {
+    private static ResponseCompressor instance = new ResponseCompressor();
+
+    // 是否启用压缩
+    private boolean enabled = true;
+    // 最小压缩长度（字节），更短的响应压缩后收益很小
+    private int minSize = 1024;
+    // 压缩级别，1（最快）到9（最小）
+    private int compressionLevel = 6;
+    // 允许压缩的媒体类型，用逗号分隔，支持text/*形式的通配
+    private String mimeTypes = "text/*,application/json,application/javascript,application/xml,image/svg+xml";
+    // 每种格式最多缓存的空闲Deflater数
+    private int maxPooledDeflaters = 64;
+
+    private volatile List<String> parsedMimeTypes;
+    // gzip使用不带zlib头的原始deflate流，deflate编码使用zlib格式
+    private final Queue<Deflater> gzipDeflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Deflater> zlibDeflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger gzipPooled = new AtomicInteger();
+    private final AtomicInteger zlibPooled = new AtomicInteger();
+    private final AtomicLong compressedCount = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    private ResponseCompressor() {
+        // 私有构造函数，单例模式
+    }
+
+    /**
+     * 获取响应压缩器实例
+     * @return 响应压缩器实例
+     */
+    public static ResponseCompressor getInstance() {
+        return instance;
+    }
+
+    /**
+     * 压缩响应体，压缩后设置Content-Encoding响应头。可压缩类型的响应都会设置Vary: Accept-Encoding，
+     * 缓存代理据此区分不同编码的响应
+     * @param request 请求
+     * @param response 响应，用于读取状态码和响应头
+     * @param body 响应体，位置信息不会被修改
+     * @return 压缩后的响应体，不需要压缩或压缩后没有变小时返回null
+     */
+    public ByteBuffer compress(HttpRequest request, HttpResponse response, ByteBuffer body) {
+        if (!enabled || request == null || response.getStatusCode() != 200
+                || response.getHeader("Content-Encoding") != null || response.getHeader("Content-Range") != null
+                || response.getHeader("Accept-Ranges") != null
+                || !isCompressible(response.getHeader("Content-Type"))) {
+            return null;
+        }
+        addVary(response);
+        String encoding = negotiate(request.getHeader("Accept-Encoding"));
+        if (encoding == null || body.remaining() < minSize) {
+            return null;
+        }
+
+        byte[] input;
+        int offset;
+        int length = body.remaining();
+        if (body.hasArray()) {
+            input = body.array();
+            offset = body.arrayOffset() + body.position();
+        } else {
+            input = new byte[length];
+            body.duplicate().get(input);
+            offset = 0;
+        }
+        byte[] output = "gzip".equals(encoding) ? gzip(input, offset, length) : deflate(input, offset, length);
+        if (output.length >= length) {
+            return null;
+        }
+        compressedCount.incrementAndGet();
+        bytesIn.addAndGet(length);
+        bytesOut.addAndGet(output.length);
+        response.setHeader("Content-Encoding", encoding);
+        return ByteBuffer.wrap(output);
+    }
+
+    /**
+     * 根据Accept-Encoding选择编码，gzip优先
+     * @return gzip、deflate，客户端不接受压缩时返回null
+     */
+    public String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String coding = part.trim();
+            float quality = 1;
+            int semicolon = coding.indexOf(';');
+            if (semicolon >= 0) {
+                quality = parseQuality(coding.substring(semicolon + 1));
+                coding = coding.substring(0, semicolon).trim();
+            }
+            coding = coding.toLowerCase(Locale.ROOT);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equals("deflate")) {
+                deflate = quality;
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+        // 未单独列出的编码按*的权重处理
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return "gzip";
+        }
+        return deflate > 0 ? "deflate" : null;
+    }
+
+    private static float parseQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String value = parameter.trim();
+            if (value.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(value.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * 判断媒体类型是否在允许压缩的列表中
+     */
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String mediaType = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType)
+                .trim().toLowerCase(Locale.ROOT);
+        for (String allowed : getParsedMimeTypes()) {
+            if (allowed.endsWith("/*") ? mediaType.startsWith(allowed.substring(0, allowed.length() - 1))
+                    : mediaType.equals(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> getParsedMimeTypes() {
+        List<String> current = parsedMimeTypes;
+        if (current == null) {
+            current = new ArrayList<>();
+            for (String type : mimeTypes.split(",")) {
+                if (!type.trim().isEmpty()) {
+                    current.add(type.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            parsedMimeTypes = current;
+        }
+        return current;
+    }
+
+    /**
+     * 在Vary响应头中追加Accept-Encoding
+     */
+    public void addVary(HttpResponse response) {
+        String vary = response.getHeader("Vary");
+        if (vary == null || vary.isEmpty()) {
+            response.setHeader("Vary", "Accept-Encoding");
+        } else if (!vary.toLowerCase(Locale.ROOT).contains("accept-encoding")) {
+            response.setHeader("Vary", vary + ", Accept-Encoding");
+        }
+    }
+
+    /**
+     * 以gzip格式压缩：10字节文件头 + 原始deflate流 + CRC32和原始长度
+     */
+    private byte[] gzip(byte[] input, int offset, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4 + 64);
+        out.write(0x1f);
+        out.write(0x8b);
+        out.write(Deflater.DEFLATED);
+        // 标志、修改时间、额外标志均为0，操作系统为未知
+        for (int i = 0; i < 6; i++) {
+            out.write(0);
+        }
+        out.write(0xff);
+        Deflater deflater = acquire(gzipDeflaters, gzipPooled, true);
+        try {
+            writeDeflated(deflater, input, offset, length, out);
+        } finally {
+            release(deflater, gzipDeflaters, gzipPooled);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(input, offset, length);
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, length);
+        return out.toByteArray();
+    }
+
+    /**
+     * 以zlib格式压缩，即HTTP的deflate编码
+     */
+    private byte[] deflate(byte[] input, int offset, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4 + 64);
+        Deflater deflater = acquire(zlibDeflaters, zlibPooled, false);
+        try {
+            writeDeflated(deflater, input, offset, length, out);
+        } finally {
+            release(deflater, zlibDeflaters, zlibPooled);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeDeflated(Deflater deflater, byte[] input, int offset, int length,
+                                      ByteArrayOutputStream out) {
+        deflater.setInput(input, offset, length);
+        deflater.finish();
+        byte[] chunk = new byte[Math.min(8192, Math.max(256, length))];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            out.write(chunk, 0, n);
+        }
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+
+    private Deflater acquire(Queue<Deflater> pool, AtomicInteger pooled, boolean nowrap) {
+        Deflater deflater = pool.poll();
+        if (deflater != null) {
+            pooled.decrementAndGet();
+            return deflater;
+        }
+        return new Deflater(compressionLevel, nowrap);
+    }
+
+    /**
+     * 重置后放回池中，池已满时释放Deflater占用的本地内存
+     */
+    private void release(Deflater deflater, Queue<Deflater> pool, AtomicInteger pooled) {
+        if (pooled.incrementAndGet() > maxPooledDeflaters) {
+            pooled.decrementAndGet();
+            deflater.end();
+            return;
+        }
+        deflater.reset();
+        pool.offer(deflater);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public String getMimeTypes() {
+        return mimeTypes;
+    }
+
+    public void setMimeTypes(String mimeTypes) {
+        this.mimeTypes = mimeTypes;
+        this.parsedMimeTypes = null;
+    }
+
+    public int getMaxPooledDeflaters() {
+        return maxPooledDeflaters;
+    }
+
+    public void setMaxPooledDeflaters(int maxPooledDeflaters) {
+        this.maxPooledDeflaters = maxPooledDeflaters;
+    }
+
+    /**
+     * 获取压缩统计信息
+     * @return 压缩统计信息字符串
+     */
+    public String getInfo() {
+        return String.format("响应压缩信息: 启用=%b, 压缩次数=%d, 压缩前=%d, 压缩后=%d, 空闲Deflater=%d/%d",
+                enabled, compressedCount.get(), bytesIn.get(), bytesOut.get(),
+                gzipPooled.get(), zlibPooled.get());
+    }
+}
@@ -0,0 +1,190 @@
+package http.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 响应体输出流：写入的数据先进入固定大小的缓冲区，缓冲区写满或调用flush时提交响应并发送数据
+ * 响应体较小、直到finish都没有提交时，缓冲的数据作为完整响应体按Content-Length发送；
+ * 提交后不知道总长度时以chunked编码分块发送，每个缓冲区对应一个分块，响应体不会整体驻留在内存中
+ */
+public abstract class ResponseOutputStream extends OutputStream {
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final byte[] buffer;
+    private int count = 0;
+    private boolean committed = false;
+    private boolean chunked = false;
+    private boolean finished = false;
+
+    /**
+     * @param bufferSize 缓冲区大小（字节），也是分块的大小
+     */
+    protected ResponseOutputStream(int bufferSize) {
+        this.buffer = new byte[Math.max(256, bufferSize)];
+    }
+
+    /**
+     * 提交响应：确定传输方式并发送响应行和响应头
+     * @return 是否使用chunked编码发送响应体
+     */
+    protected abstract boolean commit() throws IOException;
+
+    /**
+     * 分配用于发送的Buffer，默认在堆上分配，子类可以从Buffer池借出
+     * @param capacity 需要的容量
+     * @return 写模式的Buffer
+     */
+    protected ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * 发送已编码的数据
+     * @param data 要发送的数据（由allocate分配），发送后不再被输出流使用
+     */
+    protected abstract void send(ByteBuffer data) throws IOException;
+
+    @Override
+    public void write(int b) throws IOException {
+        checkNotFinished();
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        checkNotFinished();
+        if (length > buffer.length - count) {
+            flushBuffer();
+        }
+        if (length >= buffer.length) {
+            // 大块数据不经过缓冲区，按缓冲区大小分块直接发送
+            while (length > 0) {
+                int n = Math.min(length, buffer.length);
+                sendChunk(data, offset, n);
+                offset += n;
+                length -= n;
+            }
+            return;
+        }
+        System.arraycopy(data, offset, buffer, count, length);
+        count += length;
+    }
+
+    /**
+     * 提交响应并发送缓冲区中的数据
+     */
+    @Override
+    public void flush() throws IOException {
+        checkNotFinished();
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (!committed) {
+            chunked = commit();
+            committed = true;
+        }
+        if (count > 0) {
+            sendChunk(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void sendChunk(byte[] data, int offset, int length) throws IOException {
+        if (!committed) {
+            chunked = commit();
+            committed = true;
+        }
+        if (!chunked) {
+            ByteBuffer out = allocate(length);
+            out.put(data, offset, length).flip();
+            send(out);
+            return;
+        }
+        // 分块格式：十六进制长度 CRLF 数据 CRLF
+        int digits = (35 - Integer.numberOfLeadingZeros(length)) / 4;
+        ByteBuffer out = allocate(digits + length + 4);
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            out.put(HEX_DIGITS[(length >>> shift) & 0xf]);
+        }
+        out.put(CRLF).put(data, offset, length).put(CRLF).flip();
+        send(out);
+    }
+
+    /**
+     * 结束已提交的响应：发送剩余数据，chunked编码时发送结束分块
+     */
+    public void finishStream() throws IOException {
+        if (finished) {
+            return;
+        }
+        flushBuffer();
+        finished = true;
+        if (chunked) {
+            ByteBuffer out = allocate(LAST_CHUNK.length);
+            out.put(LAST_CHUNK).flip();
+            send(out);
+        }
+    }
+
+    /**
+     * 关闭输出流即完成响应
+     */
+    @Override
+    public abstract void close() throws IOException;
+
+    /**
+     * 取出未提交时缓冲的数据，由响应作为完整响应体发送
+     */
+    public byte[] takeBuffered() {
+        byte[] data = new byte[count];
+        System.arraycopy(buffer, 0, data, 0, count);
+        count = 0;
+        finished = true;
+        return data;
+    }
+
+    /**
+     * 丢弃未提交时缓冲的数据
+     */
+    public void reset() {
+        if (committed) {
+            throw new IllegalStateException("Response has already been committed");
+        }
+        count = 0;
+    }
+
+    /**
+     * 不再发送任何数据，已提交的chunked响应缺少结束分块，客户端可以据此发现响应不完整
+     */
+    public void abort() {
+        count = 0;
+        finished = true;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    public int getBufferedCount() {
+        return count;
+    }
+
+    private void checkNotFinished() throws IOException {
+        if (finished) {
+            throw new IOException("Response has already been finished");
+        }
+    }
+}
@@ -2,6 +2,7 @@ package observors.impl;
 
 import event.Event;
 import event.HttpEvent;
+import http.HttpRequest;
 import http.impl.HttpRequestImpl;
 import observors.Observer;
 import server.RequestProcess;
@@ -15,7 +16,12 @@ public class HttpEventObserver implements Observer {
     public void handle(Event event) {
         if (event instanceof HttpEvent)
         {
-            requestProcess.process(new HttpRequestImpl(((HttpEvent) event).getRequestData(),event.getSource()));
+            HttpEvent httpEvent = (HttpEvent) event;
+            HttpRequest request = httpEvent.getRequest();
+            if (request == null) {
+                request = new HttpRequestImpl(httpEvent.getRequestData(), event.getSource());
+            }
+            requestProcess.process(request);
         }
     }
 
@@ -16,6 +16,21 @@ public abstract class RequestProcess {
 
 
     public void process(HttpRequest request){
+        try {
+            handle(request);
+        } finally {
+            afterProcess(request);
+        }
+    }
+
+    /**
+     * 请求处理完毕（工作线程不再访问请求对象）后调用，默认不做任何处理
+     * @param request 原始请求对象
+     */
+    protected void afterProcess(HttpRequest request) {
+    }
+
+    private void handle(HttpRequest request){
         HttpResponse response = createResponse(request);
         HttpRequest handled_request = filter(request);
         String url = handled_request.getUrl();
@@ -31,6 +46,11 @@ public abstract class RequestProcess {
         }catch (Exception e) {
             System.err.println("处理请求时发生异常: " + e.getMessage());
             e.printStackTrace();
+            // 响应头已发送时无法再返回500，中止响应
+            if (response != null && response.isCommitted()) {
+                response.abort();
+                return;
+            }
             // 异常情况下发送500错误响应
             if (response != null) {
                 try {
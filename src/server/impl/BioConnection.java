@@ -0,0 +1,233 @@
+package server.impl;
+
+import http.impl.HttpBodyDecoder;
+import http.impl.HttpParseException;
+import http.impl.HttpRequestHead;
+import http.impl.HttpRequestImpl;
+import http.impl.HttpRequestParser;
+import server.RequestProcess;
+import server.Server;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 阻塞式连接处理器，每个连接独占一个线程（优先使用虚拟线程）
+ * 在同一个线程中依次完成读取、解析、调用Servlet和写出响应，keep-alive连接循环处理后续请求
+ */
+public class BioConnection implements Runnable {
+    private final Socket socket;
+    private final BioServerImpl server;
+    private final RequestProcess requestProcess;
+    private final HttpRequestParser parser;
+    private InputStream inputStream;
+    private OutputStream outputStream;
+    // 读缓冲区，请求处理完成后剩余的流水线数据移动到缓冲区开头
+    private ByteBuffer buffer;
+    // 当前连接上已处理的请求数
+    private int requestCount = 0;
+    // 当前请求的响应是否已写出，以及写出后是否保持连接
+    private boolean responseFinished;
+    private boolean responseKeepAlive;
+    private volatile boolean closed = false;
+    // 响应头的编码缓冲区，同一连接上的响应依次复用
+    private ByteBuffer headerBuffer;
+
+    public BioConnection(Socket socket, BioServerImpl server, RequestProcess requestProcess) {
+        this.socket = socket;
+        this.server = server;
+        this.requestProcess = requestProcess;
+        this.parser = new HttpRequestParser(server.getMaxHeaderCount());
+    }
+
+    public Socket getSocket() {
+        return socket;
+    }
+
+    /**
+     * 获取带缓冲的输出流，响应头和响应体在flush时一次写出
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * 获取用于编码响应头的缓冲区，容量不足时重新分配。缓冲区在下一个响应中复用，调用者写出后不能再保留
+     * @param capacity 需要的最小容量
+     * @return 已清空的缓冲区
+     */
+    public ByteBuffer getHeaderBuffer(int capacity) {
+        if (headerBuffer == null || headerBuffer.capacity() < capacity) {
+            headerBuffer = ByteBuffer.allocate(Math.max(capacity, 1024));
+        }
+        headerBuffer.clear();
+        return headerBuffer;
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * 判断连接是否还允许继续复用
+     */
+    public boolean canKeepAlive() {
+        return !closed && requestCount < server.getMaxKeepAliveRequests();
+    }
+
+    /**
+     * 响应写出后由响应对象调用
+     * @param keepAlive 是否保持连接
+     */
+    public void responseFinished(boolean keepAlive) {
+        this.responseFinished = true;
+        this.responseKeepAlive = keepAlive;
+    }
+
+    @Override
+    public void run() {
+        try {
+            socket.setSoTimeout((int) server.getKeepAliveTimeout());
+            socket.setTcpNoDelay(server.isTcpNoDelay());
+            inputStream = socket.getInputStream();
+            outputStream = new BufferedOutputStream(socket.getOutputStream(), 8192);
+            buffer = ByteBuffer.allocate(server.getReadBufferSize());
+            while (!closed && server.getState() == Server.ServerState.STARTED) {
+                if (!handleRequest()) {
+                    break;
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // keep-alive空闲超时或客户端发送过慢
+        } catch (HttpParseException e) {
+            System.err.println("拒绝请求: " + e.getStatusCode() + " " + e.getMessage());
+            sendError(e);
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("处理连接时发生异常: " + e.getMessage());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 读取并处理一个请求
+     * @return 是否继续处理下一个请求
+     */
+    private boolean handleRequest() throws IOException {
+        // 读取并解析请求头
+        while (!parser.parse(buffer)) {
+            if (!buffer.hasRemaining()) {
+                if (buffer.capacity() >= server.getMaxHeaderSize()) {
+                    throw new HttpParseException("Request Header Fields Too Large", 431);
+                }
+                grow(Math.min(buffer.capacity() * 2, server.getMaxHeaderSize()));
+            }
+            if (!fill()) {
+                // 客户端关闭连接
+                return false;
+            }
+        }
+
+        // 读取请求体，整个请求体保留在缓冲区中
+        int bodyEnd = parser.getHeaderEnd();
+        int nextRequestStart = bodyEnd;
+        HttpBodyDecoder decoder = HttpBodyDecoder.create(
+                parser.getRequestHead(buffer, bodyEnd), server.getMaxBodySize());
+        if (decoder != null) {
+            while (!decoder.decode(buffer, null)) {
+                if (!buffer.hasRemaining()) {
+                    grow(decoder.isChunked()
+                            ? buffer.capacity() * 2
+                            : (int) (decoder.getBodyStart() + decoder.getContentLength()));
+                }
+                if (!fill()) {
+                    return false;
+                }
+            }
+            bodyEnd = decoder.getBodyEnd();
+            nextRequestStart = decoder.getNextRequestStart();
+        }
+
+        HttpRequestHead head = parser.getRequestHead(buffer, bodyEnd);
+        requestCount++;
+        responseFinished = false;
+        responseKeepAlive = false;
+        requestProcess.process(new HttpRequestImpl(head, this));
+        if (!responseFinished || !responseKeepAlive) {
+            return false;
+        }
+
+        // 请求已处理完毕，缓冲区中剩余的数据属于下一个流水线请求
+        compact(nextRequestStart);
+        parser.reset();
+        return true;
+    }
+
+    /**
+     * 从Socket读取数据到缓冲区
+     * @return 读取到数据返回true，客户端关闭连接返回false
+     */
+    private boolean fill() throws IOException {
+        int n = inputStream.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (n == -1) {
+            return false;
+        }
+        buffer.position(buffer.position() + n);
+        return true;
+    }
+
+    private void grow(int capacity) {
+        ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        buffer = newBuffer;
+    }
+
+    /**
+     * 把下一个请求的数据移动到缓冲区开头
+     */
+    private void compact(int nextRequestStart) {
+        buffer.limit(buffer.position());
+        buffer.position(nextRequestStart);
+        buffer.compact();
+    }
+
+    /**
+     * 返回错误响应，之后连接将被关闭
+     */
+    private void sendError(HttpParseException e) {
+        String response = "HTTP/1.1 " + e.getStatusCode() + " " + e.getReasonPhrase() + "\r\n"
+                + "Content-Length: 0\r\n"
+                + "Connection: close\r\n\r\n";
+        try {
+            outputStream.write(response.getBytes(StandardCharsets.ISO_8859_1));
+            outputStream.flush();
+        } catch (IOException ex) {
+            System.err.println("发送错误响应失败: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * 关闭连接
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        server.connectionClosed(this);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("关闭连接失败: " + e.getMessage());
+        }
+    }
+}
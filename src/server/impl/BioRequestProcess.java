@@ -24,6 +24,9 @@ public class BioRequestProcess extends RequestProcess {
     public HttpResponse createResponse(HttpRequest request)  {
 
         try{
+            if (request.getSource() instanceof BioConnection) {
+                return new BioHttpResponse((BioConnection) request.getSource(), request);
+            }
             return new BioHttpResponse(request.getRequestData(),(Socket)request.getSource());
         }catch (Exception e){
             e.printStackTrace();
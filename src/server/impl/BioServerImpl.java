@@ -5,15 +5,25 @@ import event.EventManager;
 import event.HttpEvent;
 import server.Container;
 import server.RequestDataString;
+import server.RequestProcess;
 import server.Server;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 服务器的具体实现类，负责监听端口并处理客户端连接
+ * 支持两种连接处理模式：
+ * event：接受线程读取请求头后交给事件管理器处理（默认）；
+ * per-connection：每个连接独占一个线程，在该线程中完成读取、解析、调用Servlet和写出响应，支持keep-alive。
+ * JVM支持虚拟线程时默认使用虚拟线程，可以同时处理大量连接
  */
 public class BioServerImpl implements Server {
     private int port = 8080;
@@ -24,6 +34,24 @@ public class BioServerImpl implements Server {
     private Container container;
     private EventManager eventManager;
     private RequestDataString requestDataString;
+    // 连接处理模式：event 或 per-connection
+    private String connectionMode = "event";
+    // per-connection模式下是否使用虚拟线程，JVM不支持时退化为平台线程
+    private boolean virtualThreads = true;
+    // 单个连接上允许处理的最大请求数，达到后关闭连接
+    private int maxKeepAliveRequests = 100;
+    // keep-alive连接的空闲超时时间（毫秒）
+    private long keepAliveTimeout = 20000;
+    // 读缓冲区初始大小、请求头大小上限（字节）和请求头数量上限
+    private int readBufferSize = 1024;
+    private int maxHeaderSize = 8192;
+    private int maxHeaderCount = 100;
+    // 请求体大小上限（字节）
+    private long maxBodySize = 10 * 1024 * 1024;
+    // 连接是否关闭Nagle算法，小响应不必等待前一个分组的确认
+    private boolean tcpNoDelay = true;
+    private RequestProcess requestProcess;
+    private final Set<BioConnection> connections = ConcurrentHashMap.newKeySet();
 
     public BioServerImpl(Container container, EventManager eventManager, RequestDataString requestDataString) {
         this.container = container;
@@ -44,14 +72,17 @@ public class BioServerImpl implements Server {
             // 初始化容器
             container.init();
 
-            // 创建线程池，支持3个并发请求
-            threadPool = Executors.newFixedThreadPool(2);
+            if (isPerConnectionMode()) {
+                // 每个连接由独立线程同步处理，不经过事件管理器
+                threadPool = createConnectionExecutor();
+                requestProcess = new BioRequestProcess(container);
+            }
 
             // 启动服务器Socket
             serverSocket = new ServerSocket(port);
             state = ServerState.STARTED;
 
-            System.out.println("服务器已启动，监听端口: " + port);
+            System.out.println("服务器已启动，监听端口: " + port + "，连接处理模式: " + connectionMode);
             System.out.println("访问地址: http://localhost:" + port);
 
             // 开始接受客户端连接
@@ -70,6 +101,10 @@ public class BioServerImpl implements Server {
             while (state == ServerState.STARTED) {
                 try {
                     Socket clientSocket = serverSocket.accept();//每次有新的客户端连接都会返回一个新的实例
+                    if (isPerConnectionMode()) {
+                        handleConnection(clientSocket);
+                        continue;
+                    }
                     // 创建Event对象
                     Event event = new HttpEvent(requestDataString.getRequestData(clientSocket),clientSocket);
                     eventManager.fireEvent(event);
@@ -82,6 +117,55 @@ public class BioServerImpl implements Server {
         }, "ConnectionAcceptor").start();
     }
 
+    /**
+     * 为连接分配独立线程，接受线程不参与读取，慢客户端不会阻塞后续连接
+     */
+    private void handleConnection(Socket clientSocket) {
+        BioConnection connection = new BioConnection(clientSocket, this, requestProcess);
+        connections.add(connection);
+        try {
+            threadPool.execute(connection);
+        } catch (RejectedExecutionException e) {
+            connection.close();
+        }
+    }
+
+    /**
+     * 创建连接处理线程池：优先每个连接一个虚拟线程，JVM不支持虚拟线程时每个连接一个平台线程
+     */
+    private ExecutorService createConnectionExecutor() {
+        if (virtualThreads) {
+            try {
+                // 通过反射调用，在不支持虚拟线程的JVM上也能编译运行
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                System.out.println("使用虚拟线程处理连接");
+                return (ExecutorService) method.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("当前JVM不支持虚拟线程，使用平台线程处理连接");
+            }
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> new Thread(r, "BioConnection-" + threadIndex.incrementAndGet()));
+    }
+
+    private boolean isPerConnectionMode() {
+        return "per-connection".equalsIgnoreCase(connectionMode);
+    }
+
+    /**
+     * 连接关闭时移出活动连接集合
+     */
+    void connectionClosed(BioConnection connection) {
+        connections.remove(connection);
+    }
+
+    /**
+     * 获取当前活动连接数
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
     @Override
     public void stop() {
         if (state == ServerState.STOPPED) {
@@ -97,7 +181,10 @@ public class BioServerImpl implements Server {
                 serverSocket.close();
             }
 
-            // 关闭线程池
+            // 关闭活动连接和线程池
+            for (BioConnection connection : connections) {
+                connection.close();
+            }
             if (threadPool != null) {
                 threadPool.shutdown();
             }
@@ -159,4 +246,75 @@ public class BioServerImpl implements Server {
         this.serverName = serverName;
     }
 
-}
\ No newline at end of file
+    public String getConnectionMode() {
+        return connectionMode;
+    }
+
+    public void setConnectionMode(String connectionMode) {
+        this.connectionMode = connectionMode;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+
+    public void setMaxKeepAliveRequests(int maxKeepAliveRequests) {
+        this.maxKeepAliveRequests = maxKeepAliveRequests;
+    }
+
+    public long getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    public void setKeepAliveTimeout(long keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    public int getMaxHeaderSize() {
+        return maxHeaderSize;
+    }
+
+    public void setMaxHeaderSize(int maxHeaderSize) {
+        this.maxHeaderSize = maxHeaderSize;
+    }
+
+    public int getMaxHeaderCount() {
+        return maxHeaderCount;
+    }
+
+    public void setMaxHeaderCount(int maxHeaderCount) {
+        this.maxHeaderCount = maxHeaderCount;
+    }
+
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public void setMaxBodySize(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+}
@@ -0,0 +1,172 @@
+package server.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按容量分级的ByteBuffer池
+ * 容量从最小级别开始逐级翻倍，每一级缓存有限数量的空闲Buffer；超过最大级别的请求直接分配且不回收
+ */
+public class BufferPool {
+    private final int minSize;
+    private final int maxSize;
+    private final int maxPooledPerClass;
+    private final boolean direct;
+    private final Queue<ByteBuffer>[] freeLists;
+    private final AtomicInteger[] freeCounts;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong releaseCount = new AtomicLong();
+
+    /**
+     * @param minSize 最小级别容量（字节）
+     * @param maxSize 最大级别容量（字节）
+     * @param maxPooledPerClass 每一级最多缓存的空闲Buffer数
+     * @param direct 是否使用直接内存
+     */
+    public BufferPool(int minSize, int maxSize, int maxPooledPerClass, boolean direct) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid buffer size classes: " + minSize + " - " + maxSize);
+        }
+        this.minSize = minSize;
+        this.maxPooledPerClass = maxPooledPerClass;
+        this.direct = direct;
+        int classCount = 1;
+        int size = minSize;
+        while (size < maxSize) {
+            size <<= 1;
+            classCount++;
+        }
+        this.maxSize = size;
+        this.freeLists = newFreeLists(classCount);
+        this.freeCounts = new AtomicInteger[classCount];
+        for (int i = 0; i < classCount; i++) {
+            freeLists[i] = new ConcurrentLinkedQueue<>();
+            freeCounts[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * 创建各尺寸级别的空闲列表数组，未检查的转换集中在这里
+     */
+    @SuppressWarnings("unchecked")
+    private static Queue<ByteBuffer>[] newFreeLists(int count) {
+        return (Queue<ByteBuffer>[]) new Queue<?>[count];
+    }
+
+    /**
+     * 获取容量不小于指定大小的Buffer，返回的Buffer处于写模式且已清空
+     * @param capacity 需要的最小容量
+     * @return Buffer
+     */
+    public ByteBuffer acquire(int capacity) {
+        int index = sizeClassOf(capacity);
+        if (index < 0) {
+            missCount.incrementAndGet();
+            return allocate(capacity);
+        }
+        ByteBuffer buffer = freeLists[index].poll();
+        if (buffer != null) {
+            freeCounts[index].decrementAndGet();
+            hitCount.incrementAndGet();
+            buffer.clear();
+            return buffer;
+        }
+        missCount.incrementAndGet();
+        return allocate(minSize << index);
+    }
+
+    /**
+     * 归还Buffer，不属于任何级别或该级别已满时直接丢弃
+     * @param buffer Buffer
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.isDirect() != direct) {
+            return;
+        }
+        int index = sizeClassOf(buffer.capacity());
+        if (index < 0 || (minSize << index) != buffer.capacity()) {
+            return;
+        }
+        if (freeCounts[index].incrementAndGet() > maxPooledPerClass) {
+            freeCounts[index].decrementAndGet();
+            return;
+        }
+        releaseCount.incrementAndGet();
+        freeLists[index].offer(buffer);
+    }
+
+    /**
+     * 将Buffer扩容到至少指定容量，已写入的数据会被复制到新Buffer，旧Buffer归还到池中
+     * @param buffer 原Buffer（写模式）
+     * @param capacity 需要的最小容量
+     * @return 新Buffer（写模式）
+     */
+    public ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        ByteBuffer newBuffer = acquire(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        release(buffer);
+        return newBuffer;
+    }
+
+    private int sizeClassOf(int capacity) {
+        if (capacity > maxSize) {
+            return -1;
+        }
+        int index = 0;
+        int size = minSize;
+        while (size < capacity) {
+            size <<= 1;
+            index++;
+        }
+        return index;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * 获取当前缓存的空闲Buffer总数
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (AtomicInteger freeCount : freeCounts) {
+            count += freeCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * 获取Buffer池信息
+     * @return Buffer池信息字符串
+     */
+    public String getPoolInfo() {
+        return String.format("Buffer池信息: 级别=%d-%d字节, 直接内存=%b, 命中=%d, 未命中=%d, 归还=%d, 空闲=%d",
+                minSize, maxSize, direct, hitCount.get(), missCount.get(), releaseCount.get(), getPooledCount());
+    }
+}
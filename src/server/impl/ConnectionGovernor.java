@@ -0,0 +1,159 @@
+package server.impl;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接数限制器：限制服务器的总连接数和单个客户端地址的连接数
+ * 按地址的计数分散在多个分段中，每个分段有独立的锁，不同地址的连接建立和关闭很少竞争同一把锁；
+ * 计数归零的地址立即移除，计数表不会随历史客户端数量增长
+ */
+public class ConnectionGovernor {
+    private final int maxConnections;
+    private final int maxConnectionsPerAddress;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final Stripe[] stripes;
+
+    /**
+     * @param maxConnections 最大连接数，小于等于0时不限制
+     * @param maxConnectionsPerAddress 单个客户端地址的最大连接数，小于等于0时不限制
+     * @param stripeCount 按地址计数的分段数
+     */
+    public ConnectionGovernor(int maxConnections, int maxConnectionsPerAddress, int stripeCount) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+        this.stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 为新连接占用一个名额
+     * @param address 客户端地址
+     * @return 超过总连接数或该地址的连接数上限时返回false
+     */
+    public boolean tryAcquire(InetAddress address) {
+        if (openConnections.incrementAndGet() > maxConnections && maxConnections > 0) {
+            openConnections.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        if (address == null) {
+            return true;
+        }
+        Stripe stripe = stripeOf(address);
+        synchronized (stripe) {
+            int[] count = stripe.counts.get(address);
+            if (count == null) {
+                stripe.counts.put(address, new int[]{1});
+                return true;
+            }
+            if (maxConnectionsPerAddress > 0 && count[0] >= maxConnectionsPerAddress) {
+                openConnections.decrementAndGet();
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            count[0]++;
+            return true;
+        }
+    }
+
+    /**
+     * 连接关闭，归还名额
+     * @param address 客户端地址
+     */
+    public void release(InetAddress address) {
+        openConnections.decrementAndGet();
+        if (address == null) {
+            return;
+        }
+        Stripe stripe = stripeOf(address);
+        synchronized (stripe) {
+            int[] count = stripe.counts.get(address);
+            if (count != null && --count[0] <= 0) {
+                stripe.counts.remove(address);
+            }
+        }
+    }
+
+    /**
+     * 判断总连接数是否已达到上限
+     */
+    public boolean isSaturated() {
+        return maxConnections > 0 && openConnections.get() >= maxConnections;
+    }
+
+    private Stripe stripeOf(InetAddress address) {
+        int hash = address.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[(hash & 0x7fffffff) % stripes.length];
+    }
+
+    /**
+     * 获取当前打开的连接数
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * 获取指定客户端地址当前的连接数
+     */
+    public int getConnectionCount(InetAddress address) {
+        Stripe stripe = stripeOf(address);
+        synchronized (stripe) {
+            int[] count = stripe.counts.get(address);
+            return count != null ? count[0] : 0;
+        }
+    }
+
+    /**
+     * 获取当前有连接的客户端地址数
+     */
+    public int getAddressCount() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.counts.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 获取因超过上限被拒绝的连接数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getMaxConnectionsPerAddress() {
+        return maxConnectionsPerAddress;
+    }
+
+    /**
+     * 获取连接数信息
+     * @return 连接数信息字符串
+     */
+    public String getInfo() {
+        return String.format("连接数信息: 当前连接数=%d/%d, 客户端地址数=%d, 单地址上限=%d, 拒绝次数=%d",
+                openConnections.get(), maxConnections, getAddressCount(), maxConnectionsPerAddress,
+                rejectedCount.get());
+    }
+
+    /**
+     * 按地址计数的一个分段
+     */
+    private static final class Stripe {
+        private final Map<InetAddress, int[]> counts = new HashMap<>();
+    }
+}
@@ -11,14 +11,18 @@ import servlet.impl.ServletContextImpl;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 容器的具体实现类，负责管理Servlet和请求映射
  */
 public class ContainerImpl implements Container {
-    private final Map<String, Servlet> servlets = new HashMap<>();
+    private final Map<String, Servlet> servlets = new ConcurrentHashMap<>();
+    // URL映射的原始定义，修改时加锁，并重新编译路由表
     private final Map<String, String> urlMappings = new HashMap<>();
-    private final Map<String, ServletConfig> servletConfigs = new HashMap<>();
+    private final Map<String, ServletConfig> servletConfigs = new ConcurrentHashMap<>();
+    // 编译后的路由表，请求线程无锁读取，映射变化时整体替换
+    private volatile UrlRouter router = new UrlRouter(new HashMap<>());
     private final ServletContextImpl servletContext = new ServletContextImpl();
     private final EventManager eventManager = EventManagerImpl.getInstance();
     private boolean initialized = false;
@@ -38,6 +42,17 @@ public class ContainerImpl implements Container {
         } catch (Exception e) {
             System.err.println("注册默认Servlet失败: " + e.getMessage());
         }
+
+        // 注册静态资源Servlet
+        try {
+            Map<String, String> staticParams = new HashMap<>();
+            staticParams.put("root", "src/webapp/static");
+            staticParams.put("urlPrefix", "/static");
+            registerServlet("staticResource", "servlet.impl.StaticResourceServlet", staticParams);
+            mapServlet("/static/*", "staticResource");
+        } catch (Exception e) {
+            System.err.println("注册静态资源Servlet失败: " + e.getMessage());
+        }
         
         // 注册DispatcherServlet（Spring MVC）
         try {
@@ -83,7 +98,14 @@ public class ContainerImpl implements Container {
             throw new IllegalArgumentException("Servlet不存在: " + servletName);
         }
 
-        urlMappings.put(urlPattern, servletName);
+        synchronized (urlMappings) {
+            Map<String, String> mappings = new HashMap<>(urlMappings);
+            mappings.put(urlPattern, servletName);
+            // 先编译，模式无效时抛出异常且不影响现有映射
+            UrlRouter newRouter = new UrlRouter(mappings);
+            urlMappings.put(urlPattern, servletName);
+            router = newRouter;
+        }
         System.out.println("URL映射成功: " + urlPattern + " -> " + servletName);
     }
 
@@ -94,32 +116,8 @@ public class ContainerImpl implements Container {
 
     @Override
     public String getServletNameByUrl(String url) {
-
-        // 精确匹配
-        if (urlMappings.containsKey(url)) {
-            return urlMappings.get(url);
-        }
-
-        // 前缀匹配（简化实现，只支持/*形式）
-        for (Map.Entry<String, String> entry : urlMappings.entrySet()) {
-            String pattern = entry.getKey();
-            if (pattern.endsWith("/*")) {
-                String prefix = pattern.substring(0, pattern.length() - 2);
-                if (url.startsWith(prefix)) {
-                    return entry.getValue();
-                }
-            }
-            else if (pattern.equals("/*")) {
-                return entry.getValue();
-            }
-        }
-
-        // 默认匹配
-        if (urlMappings.containsKey("/")) {
-            return urlMappings.get("/");
-        }
-
-        return null;
+        // 精确匹配 > 最长路径前缀 > 扩展名 > 默认Servlet
+        return router.match(url);
     }
 
     @Override
@@ -137,7 +135,10 @@ public class ContainerImpl implements Container {
         }
 
         servlets.clear();
-        urlMappings.clear();
+        synchronized (urlMappings) {
+            urlMappings.clear();
+            router = new UrlRouter(urlMappings);
+        }
         servletConfigs.clear();
 
         initialized = false;
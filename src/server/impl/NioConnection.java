@@ -0,0 +1,881 @@
+package server.impl;
+
+import event.Event;
+import event.HttpEvent;
+import event.OverloadHandler;
+import http.impl.HttpBodyDecoder;
+import http.impl.HttpRequestParser;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NIO连接上下文，作为SelectionKey的附件保存单个客户端连接的状态
+ * 连接固定属于一个事件循环，状态变更都通过该事件循环线程完成。
+ * 同一连接上的流水线请求并行处理，响应由每个请求的响应槽按请求顺序写回
+ */
+public class NioConnection implements OverloadHandler {
+    private final SocketChannel channel;
+    private final NioEventLoop eventLoop;
+    private final InetAddress remoteAddress;
+    // 读缓冲区，只在读取请求期间从Buffer池借出，空闲连接不持有
+    private ByteBuffer readBuffer;
+    // 请求头解析器，数据不完整时保存解析进度
+    private HttpRequestParser parser;
+    // 当前请求的请求体解码器，请求没有请求体时为null
+    private HttpBodyDecoder bodyDecoder;
+    // 大请求体以流的方式交给工作线程，小请求体保留在读缓冲区中时为null
+    private NioRequestBodyStream bodyStream;
+    // 待发送数据队列，由事件循环线程负责写出
+    private final Queue<Outbound> outboundQueue = new ConcurrentLinkedQueue<>();
+    // 按请求顺序排列的未写出响应，只在事件循环线程中修改，工作线程可以并发遍历
+    private final Deque<ResponseSlot> pendingResponses = new ConcurrentLinkedDeque<>();
+    // 工作线程还在处理的请求，响应写出后槽位会离开pendingResponses，处理结束时从这里找回
+    private final Map<Object, ResponseSlot> processingSlots = new ConcurrentHashMap<>();
+    // 已交给write但尚未写出的字节数，流式响应据此等待，避免大响应整体堆积在内存中
+    private final AtomicLong pendingWriteBytes = new AtomicLong();
+    private final Object writeLock = new Object();
+    private volatile int writeWaiters = 0;
+    // 正在读取的请求的响应槽，请求头解析完成时创建，请求读取完毕后置为null
+    private ResponseSlot currentSlot;
+    private SelectionKey selectionKey;
+    // 当前连接上已接收的请求数
+    private int requestCount = 0;
+    // 是否停止读取后续请求：客户端要求关闭连接、已达到单连接最大请求数或请求被拒绝
+    private boolean inputShutdown = false;
+    // 事件分发过载时暂停读取新请求
+    private volatile boolean inputPaused = false;
+    // 待发送数据未能一次写出，正在等待通道可写
+    private boolean writeBlocked = false;
+    // 连接当前的超时类型及其在时间轮中的定时任务，连接同一时刻只有一个超时
+    private TimeoutType timeoutType;
+    private final TimingWheel.Timeout timeout = new TimingWheel.Timeout(this::onTimeout);
+    private volatile boolean closed = false;
+
+    public NioConnection(SocketChannel channel, NioEventLoop eventLoop, InetAddress remoteAddress) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.remoteAddress = remoteAddress;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public NioEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    public InetAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public ByteBuffer getReadBuffer() {
+        return readBuffer;
+    }
+
+    void setReadBuffer(ByteBuffer readBuffer) {
+        this.readBuffer = readBuffer;
+    }
+
+    /**
+     * 获取请求头解析器，首次读取时创建
+     */
+    HttpRequestParser getParser() {
+        if (parser == null) {
+            parser = new HttpRequestParser(eventLoop.getServer().getMaxHeaderCount());
+        }
+        return parser;
+    }
+
+    /**
+     * 将读缓冲区归还到Buffer池
+     */
+    void releaseReadBuffer() {
+        if (readBuffer != null) {
+            eventLoop.getServer().getBufferPool().release(readBuffer);
+            readBuffer = null;
+        }
+    }
+
+    public SelectionKey getSelectionKey() {
+        return selectionKey;
+    }
+
+    void setSelectionKey(SelectionKey selectionKey) {
+        this.selectionKey = selectionKey;
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    HttpBodyDecoder getBodyDecoder() {
+        return bodyDecoder;
+    }
+
+    void setBodyDecoder(HttpBodyDecoder bodyDecoder) {
+        this.bodyDecoder = bodyDecoder;
+    }
+
+    NioRequestBodyStream getBodyStream() {
+        return bodyStream;
+    }
+
+    void setBodyStream(NioRequestBodyStream bodyStream) {
+        this.bodyStream = bodyStream;
+    }
+
+    boolean isInputShutdown() {
+        return inputShutdown;
+    }
+
+    boolean isInputPaused() {
+        return inputPaused;
+    }
+
+    /**
+     * 获取已接收但响应尚未写出的请求数
+     */
+    int getPendingRequestCount() {
+        return pendingResponses.size();
+    }
+
+    /**
+     * 请求头解析完成，按接收顺序为请求分配响应槽
+     */
+    void beginRequest() {
+        requestCount++;
+        currentSlot = new ResponseSlot(requestCount);
+        pendingResponses.add(currentSlot);
+        // 请求头已完整，下一个请求的请求头读取超时重新计时
+        setTimeout(null, 0);
+    }
+
+    /**
+     * 当前请求已分发给工作线程，之后工作线程以请求对象标识响应
+     * @param request 请求对象
+     * @param keepAlive 客户端是否要求保持连接
+     */
+    void bindRequest(Object request, boolean keepAlive) {
+        currentSlot.request = request;
+        processingSlots.put(request, currentSlot);
+        if (!keepAlive || currentSlot.sequence >= eventLoop.getServer().getMaxKeepAliveRequests()) {
+            // 该请求的响应写出后连接将被关闭，不再读取后续的流水线请求
+            inputShutdown = true;
+        }
+    }
+
+    /**
+     * 判断当前正在读取的请求是否已分发给工作线程
+     */
+    boolean isRequestDispatched() {
+        return currentSlot != null && currentSlot.request != null;
+    }
+
+    /**
+     * 工作线程对请求的处理已结束，不会再读取请求占用的读缓冲区
+     * @param request 请求对象
+     */
+    public void requestProcessed(Object request) {
+        ResponseSlot slot = processingSlots.remove(request);
+        if (slot != null) {
+            releaseRequestBuffer(slot);
+        }
+    }
+
+    /**
+     * 当前请求（含请求体）已读取完毕。读缓冲区转交给该请求，直到响应写出且工作线程处理结束后再归还；
+     * 缓冲区中属于后续流水线请求的数据复制到新的读缓冲区
+     * @param nextRequestStart 下一个请求在读缓冲区中的起始位置
+     */
+    void endRequestRead(int nextRequestStart) {
+        ByteBuffer buffer = readBuffer;
+        currentSlot.requestBuffer = buffer;
+        currentSlot = null;
+        readBuffer = null;
+        int leftover = buffer.position() - nextRequestStart;
+        if (leftover > 0) {
+            BufferPool bufferPool = eventLoop.getServer().getBufferPool();
+            readBuffer = bufferPool.acquire(Math.max(leftover, bufferPool.getMinSize()));
+            ByteBuffer source = buffer.duplicate();
+            source.limit(buffer.position());
+            source.position(nextRequestStart);
+            readBuffer.put(source);
+        }
+        getParser().reset();
+        if (bodyStream != null) {
+            bodyStream.finish();
+        }
+        bodyDecoder = null;
+        bodyStream = null;
+    }
+
+    /**
+     * 当前请求无法处理：丢弃未读取的数据，在之前的响应之后写出错误响应并关闭连接
+     * @param response 错误响应
+     */
+    void rejectRequest(ByteBuffer response) {
+        if (currentSlot == null) {
+            beginRequest();
+        }
+        ResponseSlot slot = currentSlot;
+        currentSlot = null;
+        bodyDecoder = null;
+        releaseReadBuffer();
+        inputShutdown = true;
+        pauseRead();
+        enqueue(slot, new Outbound(response, 0, false));
+        complete(slot, false);
+    }
+
+    /**
+     * 暂停读事件：流水线请求过多、不再读取后续请求，或流式请求体缓存已满
+     */
+    void pauseRead() {
+        setInterest(SelectionKey.OP_READ, false);
+    }
+
+    /**
+     * 恢复读事件
+     */
+    void resumeRead() {
+        if (!closed) {
+            setInterest(SelectionKey.OP_READ, true);
+        }
+    }
+
+    /**
+     * 工作线程消费了流式请求体后恢复读取剩余的请求体
+     */
+    void resumeBodyRead() {
+        if (!closed && bodyDecoder != null && !bodyDecoder.isComplete()) {
+            setInterest(SelectionKey.OP_READ, true);
+            updateTimeout();
+        }
+    }
+
+    /**
+     * 根据连接当前的状态设置超时，在读写状态变化后由事件循环线程调用：
+     * 响应写出受阻时为写超时，读取请求体时为请求体读取超时，读取请求头时为请求头读取超时（从连接建立或收到请求的
+     * 第一个字节开始计时，之后不再延长，防止客户端慢速发送请求头长期占用连接），没有未完成的请求时为keep-alive空闲超时。
+     * 请求正在由工作线程处理，或因流水线请求过多、分发过载而暂停读取时不设超时
+     */
+    void updateTimeout() {
+        if (closed) {
+            return;
+        }
+        NioServerImpl server = eventLoop.getServer();
+        boolean reading = selectionKey != null && selectionKey.isValid()
+                && (selectionKey.interestOps() & SelectionKey.OP_READ) != 0;
+        if (writeBlocked) {
+            setTimeout(TimeoutType.WRITE, server.getWriteTimeout());
+        } else if (bodyDecoder != null && reading) {
+            setTimeout(TimeoutType.BODY, server.getBodyReadTimeout());
+        } else if (currentSlot == null && pendingResponses.isEmpty()) {
+            boolean partial = readBuffer != null && readBuffer.position() > 0;
+            setTimeout(requestCount == 0 || partial ? TimeoutType.HEADER : TimeoutType.KEEP_ALIVE,
+                    requestCount == 0 || partial ? server.getHeaderReadTimeout() : server.getKeepAliveTimeout());
+        } else if (currentSlot == null && reading && readBuffer != null && readBuffer.position() > 0) {
+            // 前面的请求仍在处理，后续流水线请求的请求头不完整
+            setTimeout(TimeoutType.HEADER, server.getHeaderReadTimeout());
+        } else {
+            setTimeout(null, 0);
+        }
+    }
+
+    private void setTimeout(TimeoutType type, long delayMillis) {
+        if (type == timeoutType && (type == null || type == TimeoutType.HEADER)) {
+            // 请求头读取超时的截止时间固定不变
+            return;
+        }
+        timeoutType = type;
+        if (type == null || delayMillis <= 0) {
+            eventLoop.getTimingWheel().cancel(timeout);
+        } else {
+            eventLoop.getTimingWheel().schedule(timeout, delayMillis);
+        }
+    }
+
+    /**
+     * 超时到期，关闭连接
+     */
+    private void onTimeout() {
+        if (closed || timeoutType == null) {
+            return;
+        }
+        if (timeoutType != TimeoutType.KEEP_ALIVE) {
+            System.out.println("连接" + timeoutType.description + "超时，关闭连接");
+        }
+        close();
+    }
+
+    /**
+     * 事件分发队列已满时直接返回503，响应写出后关闭连接
+     */
+    @Override
+    public void rejectOverloaded(Event event) {
+        if (!(event instanceof HttpEvent)) {
+            return;
+        }
+        Object request = ((HttpEvent) event).getRequest();
+        // 响应带有Connection: close，缓冲区中后续的流水线请求不再分发
+        inputShutdown = true;
+        String response = "HTTP/1.1 503 Service Unavailable\r\n"
+                + "Content-Length: 0\r\n"
+                + "Retry-After: 1\r\n"
+                + "Connection: close\r\n\r\n";
+        try {
+            write(request, ByteBuffer.wrap(response.getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (IOException e) {
+            return;
+        }
+        completeResponse(request, false);
+        // 被拒绝的请求不会交给工作线程处理
+        requestProcessed(request);
+    }
+
+    /**
+     * 事件分发过载，暂停读取新请求
+     */
+    @Override
+    public void pauseInput() {
+        inputPaused = true;
+        eventLoop.execute(() -> {
+            pauseRead();
+            updateTimeout();
+        });
+    }
+
+    /**
+     * 分发队列出现空位，继续处理已读取的数据并恢复读取
+     */
+    @Override
+    public void resumeInput() {
+        eventLoop.execute(() -> {
+            inputPaused = false;
+            if (!closed) {
+                eventLoop.processInput(this);
+            }
+        });
+    }
+
+    /**
+     * 判断请求的响应之后连接是否还允许继续复用
+     * @param request 请求对象
+     */
+    public boolean canKeepAlive(Object request) {
+        if (closed) {
+            return false;
+        }
+        // 请求分发前响应槽的序号已确定
+        for (ResponseSlot slot : pendingResponses) {
+            if (slot.request == request) {
+                return slot.sequence < eventLoop.getServer().getMaxKeepAliveRequests();
+            }
+        }
+        return requestCount < eventLoop.getServer().getMaxKeepAliveRequests();
+    }
+
+    /**
+     * 写出响应数据，可在任意线程调用，数据交给事件循环线程后立即返回。
+     * 之前的请求尚未响应完成时数据暂存在响应槽中，保证响应按请求顺序写出
+     * @param request 响应对应的请求
+     * @param buffer 要写出的数据
+     */
+    public void write(Object request, ByteBuffer buffer) throws IOException {
+        write(request, buffer, false);
+    }
+
+    /**
+     * 写出从连接的Buffer池借出的数据，写出或丢弃后由事件循环线程归还到池中，调用者之后不能再使用该Buffer
+     * @param request 响应对应的请求
+     * @param buffer 要写出的数据
+     */
+    public void writePooled(Object request, ByteBuffer buffer) throws IOException {
+        write(request, buffer, true);
+    }
+
+    private void write(Object request, ByteBuffer buffer, boolean pooled) throws IOException {
+        if (closed || !channel.isOpen()) {
+            if (pooled) {
+                getBufferPool().release(buffer);
+            }
+            throw new IOException("客户端通道已关闭");
+        }
+        long size = buffer.remaining();
+        pendingWriteBytes.addAndGet(size);
+        eventLoop.execute(() -> {
+            ResponseSlot slot = findSlot(request);
+            Outbound outbound = new Outbound(buffer, size, pooled);
+            if (slot != null && !closed) {
+                enqueue(slot, outbound);
+            } else {
+                discard(outbound);
+            }
+        });
+    }
+
+    /**
+     * 获取响应编码使用的Buffer池，借出的Buffer通过writePooled写出
+     */
+    public BufferPool getBufferPool() {
+        return eventLoop.getServer().getBufferPool();
+    }
+
+    /**
+     * 等待未写出的数据减少到服务器配置的上限以下，供工作线程写出流式响应前调用，慢速客户端因此会阻塞写出线程
+     * 而不是让数据堆积在内存中。事件循环线程调用时直接返回
+     */
+    public void awaitWritable() throws IOException {
+        long maxPendingBytes = eventLoop.getServer().getMaxPendingWriteBytes();
+        if (pendingWriteBytes.get() <= maxPendingBytes || eventLoop.inEventLoop()) {
+            return;
+        }
+        synchronized (writeLock) {
+            writeWaiters++;
+            try {
+                while (pendingWriteBytes.get() > maxPendingBytes) {
+                    if (closed) {
+                        throw new IOException("客户端通道已关闭");
+                    }
+                    writeLock.wait(1000);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("等待写出响应时被中断");
+            } finally {
+                writeWaiters--;
+            }
+        }
+    }
+
+    /**
+     * 数据已写出或被丢弃，唤醒等待写出的线程
+     */
+    private void releasePendingBytes(long size) {
+        pendingWriteBytes.addAndGet(-size);
+        if (writeWaiters > 0) {
+            synchronized (writeLock) {
+                writeLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 获取流式响应的缓冲区大小
+     */
+    public int getResponseBufferSize() {
+        return eventLoop.getServer().getResponseBufferSize();
+    }
+
+    /**
+     * 获取已交给write但尚未写出的字节数
+     */
+    public long getPendingWriteBytes() {
+        return pendingWriteBytes.get();
+    }
+
+    /**
+     * 写出文件的一段作为响应数据，可在任意线程调用。轮到该段数据时由事件循环线程通过FileChannel.transferTo
+     * 从页缓存直接发送到套接字，不经过用户态缓冲区；发送完毕或连接关闭后关闭文件通道
+     * @param request 响应对应的请求
+     * @param file 文件通道
+     * @param position 起始位置
+     * @param count 字节数
+     */
+    public void writeFile(Object request, FileChannel file, long position, long count) throws IOException {
+        if (closed || !channel.isOpen()) {
+            closeQuietly(file);
+            throw new IOException("客户端通道已关闭");
+        }
+        eventLoop.execute(() -> {
+            ResponseSlot slot = findSlot(request);
+            if (slot != null && !closed) {
+                enqueue(slot, new Outbound(file, position, count));
+            } else {
+                closeQuietly(file);
+            }
+        });
+    }
+
+    /**
+     * 写出正在读取的请求的中间响应（如100 Continue），只能在事件循环线程中调用
+     * @param buffer 要写出的数据
+     */
+    void writeInterim(ByteBuffer buffer) {
+        enqueue(currentSlot, new Outbound(buffer, 0, false));
+    }
+
+    /**
+     * 响应数据已全部交给write后调用，待响应写出后关闭连接或继续处理下一个请求
+     * @param request 响应对应的请求
+     * @param keepAlive 是否保持连接
+     */
+    public void completeResponse(Object request, boolean keepAlive) {
+        eventLoop.execute(() -> {
+            ResponseSlot slot = findSlot(request);
+            if (slot != null) {
+                complete(slot, keepAlive);
+            }
+        });
+    }
+
+    /**
+     * 队首响应的数据直接进入待发送队列，其余响应的数据暂存在响应槽中
+     */
+    private void enqueue(ResponseSlot slot, Outbound outbound) {
+        if (slot == pendingResponses.peekFirst()) {
+            outboundQueue.offer(outbound);
+            flush();
+        } else {
+            slot.data.add(outbound);
+        }
+    }
+
+    /**
+     * 标记响应已完成，并依次把已完成的队首响应交给待发送队列
+     */
+    private void complete(ResponseSlot slot, boolean keepAlive) {
+        slot.completed = true;
+        slot.keepAlive = keepAlive;
+        ResponseSlot head;
+        while ((head = pendingResponses.peekFirst()) != null && head.completed) {
+            pendingResponses.pollFirst();
+            ResponseSlot finished = head;
+            outboundQueue.offer(new Outbound(() -> afterResponse(finished)));
+            ResponseSlot next = pendingResponses.peekFirst();
+            if (next != null) {
+                // 下一个响应成为队首，之前暂存的数据可以发送
+                outboundQueue.addAll(next.data);
+                next.data.clear();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * 响应全部写出后释放对请求读缓冲区的持有，然后关闭连接或继续处理后续请求
+     */
+    private void afterResponse(ResponseSlot slot) {
+        releaseRequestBuffer(slot);
+        if (!slot.keepAlive || slot == currentSlot) {
+            // 客户端要求关闭，或响应已发送但请求体还未读完，无法确定下一个请求的起始位置，直接关闭连接
+            close();
+            return;
+        }
+        // 流水线请求数达到上限时读取已暂停，继续处理缓冲区中剩余的请求
+        eventLoop.processInput(this);
+    }
+
+    /**
+     * 响应写出和工作线程处理结束各释放一次持有，两者都完成后才把读缓冲区归还到池中：
+     * 请求头和请求参数是从读缓冲区中延迟解析的，工作线程在响应写出后仍可能读取
+     */
+    private void releaseRequestBuffer(ResponseSlot slot) {
+        if (slot.holders.decrementAndGet() == 0 && slot.requestBuffer != null) {
+            eventLoop.getServer().getBufferPool().release(slot.requestBuffer);
+            slot.requestBuffer = null;
+        }
+    }
+
+    private ResponseSlot findSlot(Object request) {
+        for (ResponseSlot slot : pendingResponses) {
+            if (slot.request == request) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 尽可能多地写出待发送数据，只能在事件循环线程中调用。
+     * 通道发送缓冲区已满时注册OP_WRITE，等通道可写后由事件循环继续写出
+     */
+    void flush() {
+        if (closed) {
+            discardOutbound(outboundQueue);
+            return;
+        }
+        try {
+            Outbound outbound;
+            while ((outbound = outboundQueue.peek()) != null) {
+                boolean written = outbound.buffer != null ? writeBuffers() : outbound.write(channel);
+                if (!written) {
+                    // 部分写出，等待通道可写
+                    setInterest(SelectionKey.OP_WRITE, true);
+                    writeBlocked = true;
+                    updateTimeout();
+                    return;
+                }
+                // 聚集写出时之前的缓冲区已出队，队首是最后写完的一项
+                outbound = outboundQueue.poll();
+                release(outbound);
+                if (outbound.callback != null) {
+                    outbound.callback.run();
+                    if (closed) {
+                        return;
+                    }
+                }
+            }
+            setInterest(SelectionKey.OP_WRITE, false);
+            writeBlocked = false;
+            updateTimeout();
+        } catch (IOException e) {
+            System.err.println("写出响应失败: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * 以一次聚集写出队首连续的多个缓冲区，如响应头和响应体，除最后一个外已全部写出的缓冲区直接出队
+     * @return 队首的缓冲区全部写出后，最后一个缓冲区是否也已全部写出
+     */
+    private boolean writeBuffers() throws IOException {
+        ByteBuffer[] buffers = eventLoop.getGatherBuffers();
+        int count = 0;
+        for (Outbound outbound : outboundQueue) {
+            if (outbound.buffer == null || count == buffers.length) {
+                break;
+            }
+            buffers[count++] = outbound.buffer;
+        }
+        try {
+            if (count == 1) {
+                channel.write(buffers[0]);
+            } else {
+                channel.write(buffers, 0, count);
+            }
+        } finally {
+            Arrays.fill(buffers, 0, count, null);
+        }
+        // 最后一个缓冲区由调用者出队
+        for (int i = 1; i < count; i++) {
+            Outbound head = outboundQueue.peek();
+            if (head.buffer.hasRemaining()) {
+                return false;
+            }
+            outboundQueue.poll();
+            release(head);
+        }
+        return !outboundQueue.peek().buffer.hasRemaining();
+    }
+
+    /**
+     * 数据写出后扣减未写出字节数，并把借出的Buffer归还到池中
+     */
+    private void release(Outbound outbound) {
+        if (outbound.pendingBytes > 0) {
+            releasePendingBytes(outbound.pendingBytes);
+        }
+        if (outbound.pooled) {
+            getBufferPool().release(outbound.buffer);
+        }
+    }
+
+    /**
+     * 设置或清除感兴趣的事件
+     */
+    private void setInterest(int op, boolean enabled) {
+        if (selectionKey == null || !selectionKey.isValid()) {
+            return;
+        }
+        int ops = selectionKey.interestOps();
+        int newOps = enabled ? ops | op : ops & ~op;
+        if (newOps != ops) {
+            selectionKey.interestOps(newOps);
+        }
+    }
+
+    /**
+     * 关闭连接
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        eventLoop.connectionClosed(this);
+        eventLoop.getTimingWheel().cancel(timeout);
+        if (bodyStream != null) {
+            bodyStream.fail(new IOException("连接已关闭"));
+        }
+        discardOutbound(outboundQueue);
+        for (ResponseSlot slot : pendingResponses) {
+            discardOutbound(slot.data);
+        }
+        // 唤醒等待写出的线程，它们会发现连接已关闭
+        synchronized (writeLock) {
+            writeLock.notifyAll();
+        }
+        if (isRequestDispatched()) {
+            // 工作线程可能仍在读取引用读缓冲区的请求，不归还到池中，交给GC回收
+            readBuffer = null;
+        } else {
+            releaseReadBuffer();
+        }
+        // 处理中的请求同样可能引用各自的读缓冲区，交给GC回收
+        pendingResponses.clear();
+        currentSlot = null;
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("关闭通道失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 丢弃未发送的数据，关闭其中的文件通道
+     */
+    private void discardOutbound(Collection<Outbound> outbounds) {
+        Iterator<Outbound> iterator = outbounds.iterator();
+        while (iterator.hasNext()) {
+            Outbound outbound = iterator.next();
+            iterator.remove();
+            discard(outbound);
+        }
+    }
+
+    private void discard(Outbound outbound) {
+        if (outbound.file != null) {
+            closeQuietly(outbound.file);
+        }
+        release(outbound);
+    }
+
+    private static void closeQuietly(FileChannel file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.err.println("关闭文件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 连接的超时类型
+     */
+    private enum TimeoutType {
+        HEADER("读取请求头"),
+        BODY("读取请求体"),
+        KEEP_ALIVE("keep-alive空闲"),
+        WRITE("写出响应");
+
+        private final String description;
+
+        TimeoutType(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * 一个请求的响应槽：暂存还不能写出的响应数据，以及请求占用的读缓冲区
+     */
+    private static final class ResponseSlot {
+        // 请求在连接上的序号，从1开始
+        private final int sequence;
+        // 请求对象，分发给工作线程后设置
+        private volatile Object request;
+        private final List<Outbound> data = new ArrayList<>(2);
+        private ByteBuffer requestBuffer;
+        // 读缓冲区的持有方：响应写出、工作线程处理，计数归零时归还
+        private final AtomicInteger holders = new AtomicInteger(2);
+        private boolean completed = false;
+        private boolean keepAlive = false;
+
+        private ResponseSlot(int sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * 待发送队列中的元素：要写出的数据、要发送的文件区间，或数据全部写出后执行的回调
+     */
+    private static final class Outbound {
+        private final ByteBuffer buffer;
+        private final FileChannel file;
+        private long filePosition;
+        private long fileRemaining;
+        private final Runnable callback;
+        // 计入pendingWriteBytes的字节数
+        private final long pendingBytes;
+        // 缓冲区是否从Buffer池借出，写出或丢弃后归还
+        private final boolean pooled;
+
+        private Outbound(ByteBuffer buffer, long pendingBytes, boolean pooled) {
+            this.buffer = buffer;
+            this.file = null;
+            this.callback = null;
+            this.pendingBytes = pendingBytes;
+            this.pooled = pooled;
+        }
+
+        private Outbound(Runnable callback) {
+            this.buffer = null;
+            this.file = null;
+            this.callback = callback;
+            this.pendingBytes = 0;
+            this.pooled = false;
+        }
+
+        private Outbound(FileChannel file, long position, long count) {
+            this.buffer = null;
+            this.file = file;
+            this.filePosition = position;
+            this.fileRemaining = count;
+            this.callback = null;
+            this.pendingBytes = 0;
+            this.pooled = false;
+        }
+
+        /**
+         * 尽可能多地写出数据
+         * @return 是否已全部写出
+         */
+        private boolean write(SocketChannel channel) throws IOException {
+            if (buffer != null) {
+                channel.write(buffer);
+                return !buffer.hasRemaining();
+            }
+            if (file != null) {
+                while (fileRemaining > 0) {
+                    long n = file.transferTo(filePosition, fileRemaining, channel);
+                    if (n <= 0) {
+                        if (filePosition >= file.size()) {
+                            throw new IOException("文件在发送过程中被截断");
+                        }
+                        return false;
+                    }
+                    filePosition += n;
+                    fileRemaining -= n;
+                }
+                file.close();
+            }
+            return true;
+        }
+    }
+}
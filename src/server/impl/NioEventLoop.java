@@ -0,0 +1,486 @@
+package server.impl;
+
+import event.HttpEvent;
+import http.impl.HttpBodyDecoder;
+import http.impl.HttpParseException;
+import http.impl.HttpRequestHead;
+import http.impl.HttpRequestImpl;
+import http.impl.HttpRequestParser;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NIO事件循环（Reactor），每个事件循环持有独立的Selector和线程。
+ * 主循环只负责接受连接，工作循环负责已分配连接的读写事件，连接在整个生命周期内固定在同一个工作循环上。
+ */
+public class NioEventLoop implements Runnable {
+    private static final byte[] CONTINUE_RESPONSE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final String name;
+    private final NioServerImpl server;
+    private final Selector selector;
+    private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private volatile boolean running = false;
+    private Thread thread;
+    // 连接超时时间轮，只在事件循环线程中使用
+    private final TimingWheel timingWheel;
+    // 聚集写出时复用的缓冲区数组，只在事件循环线程中使用
+    private final ByteBuffer[] gatherBuffers = new ByteBuffer[16];
+    // 当前事件循环负责的监听通道，以及是否已暂停接受连接
+    private SelectionKey acceptKey;
+    private boolean acceptPaused = false;
+
+    public NioEventLoop(String name, NioServerImpl server) throws IOException {
+        this.name = name;
+        this.server = server;
+        this.selector = Selector.open();
+        this.timingWheel = new TimingWheel(server.getTimerTickMillis(), server.getTimerWheelSize());
+    }
+
+    /**
+     * 启动事件循环线程
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this, name);
+        thread.start();
+    }
+
+    /**
+     * 停止事件循环，关闭Selector上注册的所有通道
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * 提交任务到事件循环线程执行
+     * @param task 任务
+     */
+    public void execute(Runnable task) {
+        taskQueue.offer(task);
+        if (!inEventLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * 判断当前线程是否为事件循环线程
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * 注册服务器通道，监听连接事件
+     * @param serverChannel 服务器通道
+     */
+    public void registerAcceptor(ServerSocketChannel serverChannel) {
+        execute(() -> {
+            try {
+                acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (ClosedChannelException e) {
+                System.err.println(name + " 注册服务器通道失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 注册客户端连接，由主循环在接受连接后调用
+     * @param clientChannel 客户端通道
+     * @param remoteAddress 客户端地址
+     */
+    public void register(SocketChannel clientChannel, InetAddress remoteAddress) {
+        connectionCount.incrementAndGet();
+        execute(() -> {
+            // 创建连接上下文，读缓冲区在有数据可读时才分配
+            NioConnection connection = new NioConnection(clientChannel, this, remoteAddress);
+            try {
+                // 注册读事件
+                connection.setSelectionKey(clientChannel.register(selector, SelectionKey.OP_READ, connection));
+                connection.updateTimeout();
+            } catch (ClosedChannelException e) {
+                connection.close();
+            }
+        });
+    }
+
+    /**
+     * 暂停接受连接，只能在事件循环线程中调用
+     * @return 是否由本次调用暂停
+     */
+    boolean pauseAccept() {
+        if (acceptPaused || acceptKey == null || !acceptKey.isValid()) {
+            return false;
+        }
+        acceptKey.interestOps(0);
+        acceptPaused = true;
+        return true;
+    }
+
+    /**
+     * 恢复接受连接，只能在事件循环线程中调用
+     * @return 是否由本次调用恢复
+     */
+    boolean resumeAccept() {
+        if (!acceptPaused || !acceptKey.isValid()) {
+            return false;
+        }
+        acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        acceptPaused = false;
+        return true;
+    }
+
+    /**
+     * 连接关闭时更新连接计数
+     */
+    void connectionClosed(NioConnection connection) {
+        connectionCount.decrementAndGet();
+        server.connectionClosed(connection.getRemoteAddress());
+    }
+
+    /**
+     * 获取当前事件循环负责的连接数
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    NioServerImpl getServer() {
+        return server;
+    }
+
+    TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
+    ByteBuffer[] getGatherBuffers() {
+        return gatherBuffers;
+    }
+
+    @Override
+    public void run() {
+        System.out.println("NIO事件循环线程启动: " + name);
+        try {
+            while (running) {
+                // 阻塞等待事件发生，有待到期的超时时最多等待一个刻度；
+                // 本线程提交的任务（如reuseport模式下注册刚接受的连接）不会唤醒Selector，有任务时不阻塞
+                if (taskQueue.isEmpty()) {
+                    selector.select(timingWheel.isEmpty() ? 1000 : timingWheel.getTickMillis());
+                } else {
+                    selector.selectNow();
+                }
+                runTasks();
+                timingWheel.advance();
+
+                // 获取所有就绪的SelectionKey
+                Set<SelectionKey> selectionKeys = selector.selectedKeys();
+                Iterator<SelectionKey> iterator = selectionKeys.iterator();
+
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        // 处理连接事件
+                        if (key.isAcceptable()) {
+                            server.handleAccept(key, this);
+                            continue;
+                        }
+                        // 处理写事件，继续写出待发送队列中的数据
+                        if (key.isWritable()) {
+                            ((NioConnection) key.attachment()).flush();
+                        }
+                        // 处理读事件
+                        if (key.isValid() && key.isReadable()) {
+                            handleRead(key);
+                        }
+                    } catch (IOException e) {
+                        System.err.println("处理NIO事件时发生异常: " + e.getMessage());
+                        // 关闭通道和键
+                        closeKey(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                System.err.println("NIO事件循环发生异常: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } finally {
+            closeSelector();
+        }
+    }
+
+    /**
+     * 执行其他线程提交的任务
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = taskQueue.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.err.println(name + " 执行任务异常: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 处理读事件
+     */
+    private void handleRead(SelectionKey key) throws IOException {
+        NioConnection connection = (NioConnection) key.attachment();
+        SocketChannel clientChannel = connection.getChannel();
+        BufferPool bufferPool = server.getBufferPool();
+
+        // 从Buffer池借出读缓冲区
+        ByteBuffer buffer = connection.getReadBuffer();
+        if (buffer == null) {
+            buffer = bufferPool.acquire(bufferPool.getMinSize());
+            connection.setReadBuffer(buffer);
+        }
+
+        // 读取数据
+        int bytesRead = clientChannel.read(buffer);
+        if (bytesRead == -1) {
+            // 客户端关闭连接
+            System.out.println("客户端关闭连接: " + clientChannel.getRemoteAddress());
+            connection.close();
+            return;
+        }
+        processInput(connection);
+    }
+
+    /**
+     * 处理读缓冲区中已读取的数据。一次读取可能包含多个流水线请求，逐个解析并分发给工作线程并行处理，
+     * 响应由连接按请求顺序写回。只能在事件循环线程中调用
+     */
+    void processInput(NioConnection connection) {
+        try {
+            processRequests(connection);
+        } finally {
+            connection.updateTimeout();
+        }
+    }
+
+    private void processRequests(NioConnection connection) {
+        try {
+            while (!connection.isClosed()) {
+                if (connection.getBodyDecoder() != null) {
+                    if (!readRequestBody(connection)) {
+                        return;
+                    }
+                    continue;
+                }
+                if (connection.isInputShutdown() || connection.isInputPaused()
+                        || connection.getPendingRequestCount() >= server.getMaxPipelinedRequests()) {
+                    // 暂停读取，等之前的响应写出或事件分发队列出现空位后再继续处理
+                    connection.pauseRead();
+                    return;
+                }
+                connection.resumeRead();
+                if (connection.getReadBuffer() == null || !readRequestHead(connection)) {
+                    return;
+                }
+            }
+        } catch (HttpParseException e) {
+            rejectRequest(connection, e);
+        } catch (IOException e) {
+            System.err.println("处理请求数据时发生异常: " + e.getMessage());
+            connection.close();
+        }
+    }
+
+    /**
+     * 解析请求头，请求头完整后根据Content-Length或chunked编码准备读取请求体
+     * @return 请求是否已完整读取
+     */
+    private boolean readRequestHead(NioConnection connection) throws IOException {
+        BufferPool bufferPool = server.getBufferPool();
+        ByteBuffer buffer = connection.getReadBuffer();
+
+        // 从上次停止的位置继续解析请求头
+        HttpRequestParser parser = connection.getParser();
+        if (!parser.parse(buffer)) {
+            if (!buffer.hasRemaining()) {
+                // 缓冲区已满但请求头仍不完整，扩容直到达到请求头大小上限
+                if (buffer.capacity() >= server.getMaxHeaderSize()) {
+                    throw new HttpParseException("Request Header Fields Too Large", 431);
+                }
+                int newCapacity = Math.min(buffer.capacity() * 2, server.getMaxHeaderSize());
+                connection.setReadBuffer(bufferPool.grow(buffer, newCapacity));
+            } else if (buffer.position() == 0) {
+                // 没有读到数据，不占用缓冲区
+                connection.releaseReadBuffer();
+            }
+            return false;
+        }
+
+        connection.beginRequest();
+        HttpRequestHead head = parser.getRequestHead(buffer, parser.getHeaderEnd());
+        HttpBodyDecoder decoder = HttpBodyDecoder.create(head, server.getMaxBodySize());
+        if (decoder == null) {
+            // 没有请求体，直接分发
+            dispatch(connection, head, null);
+            connection.endRequestRead(parser.getHeaderEnd());
+            return true;
+        }
+        connection.setBodyDecoder(decoder);
+        if ("100-continue".equalsIgnoreCase(head.getHeader("Expect"))) {
+            // 客户端等待确认后才发送请求体
+            connection.writeInterim(ByteBuffer.wrap(CONTINUE_RESPONSE.clone()));
+        }
+        if (decoder.getContentLength() > server.getMaxInMemoryBodySize()) {
+            // 已知的大请求体，立即以流的方式分发
+            startStreaming(connection);
+        }
+        return readRequestBody(connection);
+    }
+
+    /**
+     * 读取请求体：小请求体读完后连同请求头一起分发，大请求体以流的方式转交给工作线程
+     * @return 请求体是否已读取完毕
+     */
+    private boolean readRequestBody(NioConnection connection) throws IOException {
+        HttpBodyDecoder decoder = connection.getBodyDecoder();
+        ByteBuffer buffer = connection.getReadBuffer();
+        NioRequestBodyStream bodyStream = connection.getBodyStream();
+
+        boolean complete = decoder.decode(buffer, bodyStream);
+        if (bodyStream == null && decoder.getBodyLength() > server.getMaxInMemoryBodySize()) {
+            // chunked请求体超过内存上限，改为流式处理
+            bodyStream = startStreaming(connection);
+            buffer = connection.getReadBuffer();
+        }
+
+        if (complete) {
+            if (bodyStream == null) {
+                HttpRequestHead head = connection.getParser().getRequestHead(buffer, decoder.getBodyEnd());
+                dispatch(connection, head, null);
+            }
+            // 请求体之后的数据属于下一个流水线请求
+            connection.endRequestRead(decoder.getNextRequestStart());
+            return true;
+        }
+        if (!buffer.hasRemaining()) {
+            if (bodyStream != null) {
+                // 流式处理时缓冲区中只剩不完整的chunk行
+                throw new HttpParseException("Chunk size line too long");
+            }
+            int newCapacity = decoder.isChunked()
+                    ? buffer.capacity() * 2
+                    : (int) (decoder.getBodyStart() + decoder.getContentLength());
+            connection.setReadBuffer(server.getBufferPool().grow(buffer, newCapacity));
+        }
+        return false;
+    }
+
+    /**
+     * 开始以流的方式处理请求体：分发请求，之后解码出的数据逐段写入请求体流
+     */
+    private NioRequestBodyStream startStreaming(NioConnection connection) {
+        HttpBodyDecoder decoder = connection.getBodyDecoder();
+        ByteBuffer buffer = connection.getReadBuffer();
+        // 请求分发后请求头在缓冲区中的位置不能再变化，提前保证有足够空间存放chunk行和后续数据
+        if (buffer.capacity() - decoder.getBodyStart() < server.getBufferPool().getMinSize()) {
+            buffer = server.getBufferPool().grow(buffer, decoder.getBodyStart() + server.getBufferPool().getMinSize());
+            connection.setReadBuffer(buffer);
+        }
+        NioRequestBodyStream bodyStream = new NioRequestBodyStream(connection,
+                server.getMaxInMemoryBodySize(), server.getBodyReadTimeout());
+        // 已解码并保留在缓冲区中的数据先写入流
+        int decoded = decoder.getBodyEnd() - decoder.getBodyStart();
+        if (decoded > 0) {
+            bodyStream.write(buffer, decoder.getBodyStart(), decoded);
+            decoder.discardDecodedData(buffer);
+        }
+        connection.setBodyStream(bodyStream);
+
+        HttpRequestHead head = connection.getParser().getRequestHead(buffer, decoder.getBodyStart());
+        dispatch(connection, head, bodyStream);
+        return bodyStream;
+    }
+
+    /**
+     * 分发请求，读缓冲区在响应写出前由请求引用
+     * @param bodyStream 流式请求体，请求体已在缓冲区中时为null
+     */
+    private void dispatch(NioConnection connection, HttpRequestHead head, NioRequestBodyStream bodyStream) {
+        HttpRequestImpl request = new HttpRequestImpl(head, connection);
+        if (bodyStream != null) {
+            request.setInputStream(bodyStream);
+        }
+        connection.bindRequest(request, request.isKeepAlive());
+        // 创建HttpEvent并加入队列，同时传递连接上下文
+        HttpEvent event = new HttpEvent(request, connection);
+        server.getEventManager().fireEvent(event);
+    }
+
+    /**
+     * 在之前的响应之后返回错误响应，发送后关闭连接
+     */
+    private void rejectRequest(NioConnection connection, HttpParseException e) {
+        System.err.println("拒绝请求: " + e.getStatusCode() + " " + e.getMessage());
+        if (connection.isRequestDispatched()) {
+            // 请求已分发给工作线程，由其负责响应，这里只关闭连接
+            connection.close();
+            return;
+        }
+        String response = "HTTP/1.1 " + e.getStatusCode() + " " + e.getReasonPhrase() + "\r\n"
+                + "Content-Length: 0\r\n"
+                + "Connection: close\r\n\r\n";
+        connection.rejectRequest(ByteBuffer.wrap(response.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    /**
+     * 关闭SelectionKey对应的通道
+     */
+    private void closeKey(SelectionKey key) {
+        if (key.attachment() instanceof NioConnection) {
+            ((NioConnection) key.attachment()).close();
+            return;
+        }
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            System.err.println("关闭通道失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭Selector及其上注册的所有通道
+     */
+    private void closeSelector() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("关闭Selector失败: " + e.getMessage());
+        }
+    }
+}
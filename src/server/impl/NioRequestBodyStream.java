@@ -0,0 +1,130 @@
+package server.impl;
+
+import http.impl.HttpBodyDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 以流的方式读取大请求体
+ * 事件循环线程写入解码后的数据，处理请求的工作线程阻塞读取；缓存的数据超过上限时暂停读取连接，
+ * 工作线程消费到上限的一半以下后再恢复读取
+ */
+public class NioRequestBodyStream extends InputStream implements HttpBodyDecoder.BodySink {
+    private static final byte[] EOF = new byte[0];
+
+    private final NioConnection connection;
+    private final long maxBuffered;
+    private final long readTimeout;
+    private final LinkedBlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicBoolean paused = new AtomicBoolean(false);
+    private volatile IOException failure;
+    private byte[] current;
+    private int currentOffset;
+    private boolean eof = false;
+
+    /**
+     * @param connection 所属连接
+     * @param maxBuffered 最多缓存的字节数
+     * @param readTimeout 等待数据的超时时间（毫秒）
+     */
+    public NioRequestBodyStream(NioConnection connection, long maxBuffered, long readTimeout) {
+        this.connection = connection;
+        this.maxBuffered = maxBuffered;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public void write(ByteBuffer buffer, int offset, int length) {
+        byte[] data = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(data);
+        chunks.offer(data);
+        if (buffered.addAndGet(length) > maxBuffered && paused.compareAndSet(false, true)) {
+            connection.pauseRead();
+        }
+    }
+
+    /**
+     * 请求体已全部写入
+     */
+    void finish() {
+        chunks.offer(EOF);
+    }
+
+    /**
+     * 连接异常关闭，唤醒等待数据的工作线程
+     */
+    void fail(IOException e) {
+        failure = e;
+        chunks.offer(EOF);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (current == null || currentOffset == current.length) {
+            if (!nextChunk()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, current.length - currentOffset);
+        System.arraycopy(current, currentOffset, b, off, n);
+        currentOffset += n;
+        consumed(n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - currentOffset;
+    }
+
+    private boolean nextChunk() throws IOException {
+        if (eof) {
+            return false;
+        }
+        byte[] chunk;
+        try {
+            chunk = chunks.poll(readTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("读取请求体被中断");
+        }
+        if (chunk == null) {
+            throw new IOException("读取请求体超时");
+        }
+        if (chunk == EOF) {
+            eof = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        current = chunk;
+        currentOffset = 0;
+        return true;
+    }
+
+    private void consumed(int n) {
+        if (buffered.addAndGet(-n) < maxBuffered / 2 && paused.compareAndSet(true, false)) {
+            connection.getEventLoop().execute(connection::resumeBodyRead);
+        }
+    }
+}
@@ -7,8 +7,6 @@ import http.impl.NioHttpResponse;
 import server.Container;
 import server.RequestProcess;
 
-import java.nio.channels.SocketChannel;
-
 /**
  * 基于NIO的请求处理模板
  */
@@ -24,6 +22,14 @@ public class NioRequestProcess extends RequestProcess {
 
     @Override
     public HttpResponse createResponse(HttpRequest request) {
-        return new NioHttpResponse((SocketChannel)request.getSource(),request.getRequestData());
+        return new NioHttpResponse((NioConnection) request.getSource(), request);
+    }
+
+    /**
+     * 通知连接工作线程已不再读取请求，请求占用的读缓冲区可以归还
+     */
+    @Override
+    protected void afterProcess(HttpRequest request) {
+        ((NioConnection) request.getSource()).requestProcessed(request);
     }
 }
\ No newline at end of file
@@ -1,34 +1,86 @@
 package server.impl;
 
-import event.Event;
-import event.HttpEvent;
 import event.EventManager;
 import server.Container;
 import server.RequestDataString;
 import server.Server;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.channels.*;
-import java.util.Iterator;
-import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * 基于NIO机制的服务器实现
+ * 基于NIO机制的服务器实现（主从Reactor模式）
+ * 主循环只负责接受连接，并将连接按轮询或最少连接策略分配给工作循环。
+ * reuseport模式下每个工作循环各自在同一端口上打开监听通道（SO_REUSEPORT），由内核在监听通道之间分配新连接，
+ * 连接由接受它的工作循环直接处理
  */
 public class NioServerImpl implements Server {
     private int port = 8080;
     private String serverName = "MyNioTomcat";
     private ServerState state = ServerState.STOPPED;
-    private ServerSocketChannel serverSocketChannel;
-    private Selector selector;
-    private ExecutorService threadPool;
+    private final List<ServerSocketChannel> serverSocketChannels = new ArrayList<>();
     private Container container;
     private EventManager eventManager;
     private RequestDataString requestDataString;
+    // 工作循环数量，为0时退化为单Reactor模式，由主循环同时处理读事件
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    // 连接分配策略：round-robin 或 least-loaded
+    private String balanceStrategy = "round-robin";
+    // 接受连接的方式：boss（主循环接受后分配给工作循环）或 reuseport（每个工作循环各自监听端口）
+    private String acceptorMode = "boss";
+    // 监听通道的等待队列长度，以及连接的套接字选项，缓冲区大小为0时使用系统默认值
+    private int backlog = 1024;
+    private boolean tcpNoDelay = true;
+    private int receiveBufferSize = 0;
+    private int sendBufferSize = 0;
+    // 单个连接上允许处理的最大请求数，达到后关闭连接
+    private int maxKeepAliveRequests = 100;
+    // keep-alive连接的空闲超时时间（毫秒）
+    private long keepAliveTimeout = 20000;
+    // 请求头读取超时：从连接建立或收到请求的第一个字节起，必须在该时间内收到完整的请求头（毫秒）
+    private long headerReadTimeout = 20000;
+    // 请求体读取超时：读取请求体时两次收到数据的最大间隔（毫秒）
+    private long bodyReadTimeout = 60000;
+    // 写超时：响应写出受阻（客户端不读取）时两次写出数据的最大间隔（毫秒）
+    private long writeTimeout = 60000;
+    // 超时时间轮的刻度时长（毫秒）和槽数
+    private long timerTickMillis = 100;
+    private int timerWheelSize = 512;
+    // 单个连接上同时处理的最大流水线请求数，达到后暂停读取直到前面的响应写出
+    private int maxPipelinedRequests = 16;
+    // 读缓冲区初始大小、请求头大小上限（字节），以及是否使用直接内存
+    private int readBufferSize = 1024;
+    private int maxHeaderSize = 8192;
+    private int maxHeaderCount = 100;
+    // 请求体大小上限，以及保留在内存中的请求体上限（字节），超过后以流的方式处理
+    private long maxBodySize = 10 * 1024 * 1024;
+    private int maxInMemoryBodySize = 64 * 1024;
+    private boolean directBuffers = true;
+    // 流式响应的缓冲区大小（即分块大小），以及单个连接已提交但未写出的数据上限（字节），超过后写出响应的线程等待
+    private int responseBufferSize = 8192;
+    private long maxPendingWriteBytes = 256 * 1024;
+    // 最大连接数和单个客户端地址的最大连接数，小于等于0时不限制；达到最大连接数后暂停接受连接，由内核的等待队列承接
+    private int maxConnections = 10000;
+    private int maxConnectionsPerAddress = 256;
+    private ConnectionGovernor connectionGovernor;
+    // 已暂停接受连接的监听通道数
+    private final AtomicInteger pausedAcceptors = new AtomicInteger();
+    // Buffer池每个容量级别最多缓存的空闲Buffer数
+    private int maxPooledBuffers = 1024;
+    private BufferPool bufferPool;
+    private NioEventLoop bossLoop;
+    private NioEventLoop[] workerLoops;
+    // 负责接受连接的事件循环
+    private NioEventLoop[] acceptorLoops;
+    private boolean reusePort = false;
+    private final AtomicInteger nextWorker = new AtomicInteger();
 
     public NioServerImpl(Container container, EventManager eventManager, RequestDataString requestDataString) {
         this.container = container;
@@ -50,24 +102,46 @@ public class NioServerImpl implements Server {
             // 初始化容器
             container.init();
 
-            // 创建Selector
-            selector = Selector.open();
+            // 创建读缓冲区池
+            // 最大级别覆盖请求头上限加上保留在内存中的请求体上限
+            bufferPool = new BufferPool(readBufferSize, maxHeaderSize + maxInMemoryBodySize, maxPooledBuffers, directBuffers);
 
-            // 创建ServerSocketChannel
-            serverSocketChannel = ServerSocketChannel.open();
-            serverSocketChannel.configureBlocking(false); // 设置为非阻塞模式
-            serverSocketChannel.bind(new InetSocketAddress(port));
+            // 创建连接数限制器
+            connectionGovernor = new ConnectionGovernor(maxConnections, maxConnectionsPerAddress, 64);
 
-            // 注册到Selector，监听连接事件
-            serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+            // 创建工作循环，reuseport模式下工作循环同时负责接受连接，不需要主循环
+            reusePort = "reuseport".equals(acceptorMode) && workerCount > 0 && isReusePortSupported();
+            if (workerCount > 0) {
+                workerLoops = new NioEventLoop[workerCount];
+                for (int i = 0; i < workerCount; i++) {
+                    workerLoops[i] = new NioEventLoop("NioWorkerLoop-" + i, this);
+                }
+            }
+            if (reusePort) {
+                acceptorLoops = workerLoops;
+            } else {
+                bossLoop = new NioEventLoop("NioBossLoop", this);
+                if (workerLoops == null) {
+                    workerLoops = new NioEventLoop[]{bossLoop};
+                }
+                acceptorLoops = new NioEventLoop[]{bossLoop};
+            }
+
+            // 为每个接受连接的事件循环创建监听通道并注册连接事件
+            for (NioEventLoop acceptorLoop : acceptorLoops) {
+                ServerSocketChannel serverSocketChannel = openServerSocketChannel();
+                serverSocketChannels.add(serverSocketChannel);
+                acceptorLoop.registerAcceptor(serverSocketChannel);
+            }
 
             state = ServerState.STARTED;
 
-            System.out.println("服务器已启动，监听端口: " + port);
+            System.out.println("服务器已启动，监听端口: " + port + "，工作循环数: " + workerLoops.length
+                    + "，监听通道数: " + serverSocketChannels.size());
             System.out.println("访问地址: http://localhost:" + port);
 
             // 启动NIO事件循环
-            startNioEventLoop();
+            startNioEventLoops();
 
         } catch (IOException e) {
             System.err.println("服务器启动失败: " + e.getMessage());
@@ -77,104 +151,163 @@ public class NioServerImpl implements Server {
     }
 
     /**
-     * 启动NIO事件循环
+     * 创建监听通道，设置套接字选项后绑定端口
      */
-    private void startNioEventLoop() {
-        new Thread(() -> {
-            System.out.println("NIO事件循环线程启动");
-            try {
-                while (state == ServerState.STARTED) {
-                    // 阻塞等待事件发生，设置超时时间避免无限阻塞
-                    int readyChannels = selector.select(1000);
-                    if (readyChannels == 0) {
-                        continue;
-                    }
-
-                    // 获取所有就绪的SelectionKey
-                    Set<SelectionKey> selectionKeys = selector.selectedKeys();
-                    Iterator<SelectionKey> iterator = selectionKeys.iterator();
-
-                    while (iterator.hasNext()) {
-                        SelectionKey key = iterator.next();
-                        iterator.remove();
-
-                        try {
-                            // 处理连接事件
-                            if (key.isAcceptable()) {
-                                handleAccept(key);
-                            }
-                            // 处理读事件
-                            else if (key.isReadable()) {
-                                handleRead(key);
-                            }
-                        } catch (IOException e) {
-                            System.err.println("处理NIO事件时发生异常: " + e.getMessage());
-                            e.printStackTrace();
-                            // 关闭通道和键
-                            key.cancel();
-                            key.channel().close();
-                        }
-                    }
+    private ServerSocketChannel openServerSocketChannel() throws IOException {
+        ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+        serverSocketChannel.configureBlocking(false); // 设置为非阻塞模式
+        if (reusePort) {
+            serverSocketChannel.setOption(reusePortOption(), true);
+        }
+        if (receiveBufferSize > 0) {
+            // 接收缓冲区需要在监听前设置，接受的连接继承该值，窗口扩大选项才能生效
+            serverSocketChannel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+        }
+        serverSocketChannel.bind(new InetSocketAddress(port), backlog);
+        return serverSocketChannel;
+    }
+
+    /**
+     * 获取SO_REUSEPORT选项，该选项从Java 9开始提供，运行在更早的JVM上时返回null
+     */
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> reusePortOption() {
+        try {
+            return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 判断当前JVM和操作系统是否支持SO_REUSEPORT，不支持时退回到主循环接受连接
+     */
+    private static boolean isReusePortSupported() {
+        SocketOption<Boolean> option = reusePortOption();
+        if (option != null) {
+            try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+                if (channel.supportedOptions().contains(option)) {
+                    return true;
                 }
             } catch (IOException e) {
-                if (state == ServerState.STARTED) {
-                    System.err.println("NIO事件循环发生异常: " + e.getMessage());
-                    e.printStackTrace();
-                    stop();
-                }
+                System.err.println("检查SO_REUSEPORT支持失败: " + e.getMessage());
             }
-        }, "NioEventLoop").start();
+        }
+        System.err.println("当前环境不支持SO_REUSEPORT，改为由主循环接受连接");
+        return false;
     }
 
     /**
-     * 处理连接事件
+     * 启动主循环和所有工作循环
      */
-    private void handleAccept(SelectionKey key) throws IOException {
+    private void startNioEventLoops() {
+        if (workerLoops[0] != bossLoop) {
+            for (NioEventLoop workerLoop : workerLoops) {
+                workerLoop.start();
+            }
+        }
+        if (bossLoop != null) {
+            bossLoop.start();
+        }
+    }
+
+    /**
+     * 处理连接事件，由接受连接的事件循环调用
+     * @param acceptorLoop 监听通道所属的事件循环
+     */
+    void handleAccept(SelectionKey key, NioEventLoop acceptorLoop) throws IOException {
         ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
-        SocketChannel clientChannel = serverChannel.accept();
-        if (clientChannel == null) {
-            return;
+        SocketChannel clientChannel;
+        // 一次性接受所有等待中的连接
+        while (true) {
+            if (connectionGovernor.isSaturated()) {
+                pauseAccept(acceptorLoop);
+                return;
+            }
+            if ((clientChannel = serverChannel.accept()) == null) {
+                return;
+            }
+            InetAddress address;
+            try {
+                address = ((InetSocketAddress) clientChannel.getRemoteAddress()).getAddress();
+            } catch (IOException e) {
+                // 客户端在接受前已断开
+                clientChannel.close();
+                continue;
+            }
+            if (!connectionGovernor.tryAcquire(address)) {
+                System.err.println("客户端连接数超过上限，拒绝连接: " + address);
+                clientChannel.close();
+                continue;
+            }
+            System.out.println("接受新连接: " + address);
+            clientChannel.configureBlocking(false); // 设置为非阻塞模式
+            clientChannel.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+            if (sendBufferSize > 0) {
+                clientChannel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+            }
+
+            // 将连接交给工作循环，此后由该循环负责连接的全部读写；reuseport模式下由接受连接的循环直接处理
+            (reusePort ? acceptorLoop : chooseWorker()).register(clientChannel, address);
         }
-        System.out.println("接受新连接: " + clientChannel.getRemoteAddress());
-        clientChannel.configureBlocking(false); // 设置为非阻塞模式
+    }
 
-        // 为客户端连接创建Buffer
-        ByteBuffer buffer = ByteBuffer.allocate(1024);
-        // 注册读事件
-        clientChannel.register(selector, SelectionKey.OP_READ, buffer);
+    /**
+     * 连接数已满，暂停该事件循环接受新连接，新连接在内核的等待队列中排队。只能在该事件循环线程中调用
+     */
+    private void pauseAccept(NioEventLoop acceptorLoop) {
+        if (!acceptorLoop.pauseAccept()) {
+            return;
+        }
+        pausedAcceptors.incrementAndGet();
+        System.err.println("连接数已达到上限，暂停接受新连接: " + connectionGovernor.getOpenConnections());
+        // 暂停前可能已有连接关闭，重新检查一次，避免错过恢复
+        if (!connectionGovernor.isSaturated()) {
+            resumeAccept(acceptorLoop);
+        }
     }
 
     /**
-     * 处理读事件
+     * 有连接关闭后恢复接受新连接。只能在该事件循环线程中调用
      */
-    private void handleRead(SelectionKey key) throws IOException {
-        SocketChannel clientChannel = (SocketChannel) key.channel();
-        ByteBuffer buffer = (ByteBuffer) key.attachment();
-
-        // 读取数据
-        int bytesRead = clientChannel.read(buffer);
-        if (bytesRead == -1) {
-            // 客户端关闭连接
-            System.out.println("客户端关闭连接: " + clientChannel.getRemoteAddress());
-            key.cancel();
-            clientChannel.close();
+    private void resumeAccept(NioEventLoop acceptorLoop) {
+        if (connectionGovernor.isSaturated() || !acceptorLoop.resumeAccept()) {
             return;
         }
-        // 转换为字符串
-        String requestData = requestDataString.getRequestData(buffer);
-
-        // 检查是否包含完整的HTTP请求（简单检查是否包含\r\n\r\n）
-        if (requestData.contains("\r\n\r\n")) {
-            // 创建HttpEvent并加入队列，同时传递客户端通道信息
-            HttpEvent event = new HttpEvent(requestData, clientChannel);
-            eventManager.fireEvent(event);
-
-            // 重置Buffer并重新注册读事件
-            buffer.clear();
-        } else {
-            // 没有完整请求，继续读取
-            buffer.compact();
+        pausedAcceptors.decrementAndGet();
+        System.out.println("恢复接受新连接: " + connectionGovernor.getOpenConnections());
+    }
+
+    /**
+     * 连接关闭时归还连接名额，有监听通道暂停接受连接时通知其所属的事件循环恢复
+     * @param address 客户端地址
+     */
+    void connectionClosed(InetAddress address) {
+        connectionGovernor.release(address);
+        if (pausedAcceptors.get() > 0) {
+            for (NioEventLoop acceptorLoop : acceptorLoops) {
+                acceptorLoop.execute(() -> resumeAccept(acceptorLoop));
+            }
+        }
+    }
+
+    /**
+     * 按分配策略选择工作循环
+     */
+    private NioEventLoop chooseWorker() {
+        if (workerLoops.length == 1) {
+            return workerLoops[0];
+        }
+        if ("least-loaded".equals(balanceStrategy)) {
+            NioEventLoop selected = workerLoops[0];
+            for (NioEventLoop workerLoop : workerLoops) {
+                if (workerLoop.getConnectionCount() < selected.getConnectionCount()) {
+                    selected = workerLoop;
+                }
+            }
+            return selected;
         }
+        return workerLoops[Math.floorMod(nextWorker.getAndIncrement(), workerLoops.length)];
     }
 
     @Override
@@ -187,20 +320,21 @@ public class NioServerImpl implements Server {
         state = ServerState.STOPPED;
 
         try {
-            // 关闭选择器
-            if (selector != null) {
-                selector.close();
+            // 停止事件循环
+            if (bossLoop != null) {
+                bossLoop.shutdown();
+            }
+            if (workerLoops != null) {
+                for (NioEventLoop workerLoop : workerLoops) {
+                    workerLoop.shutdown();
+                }
             }
 
             // 关闭服务器通道
-            if (serverSocketChannel != null) {
+            for (ServerSocketChannel serverSocketChannel : serverSocketChannels) {
                 serverSocketChannel.close();
             }
-
-            // 关闭线程池
-            if (threadPool != null) {
-                threadPool.shutdown();
-            }
+            serverSocketChannels.clear();
 
             // 销毁容器
             container.destroy();
@@ -259,4 +393,237 @@ public class NioServerImpl implements Server {
     public void setServerName(String serverName) {
         this.serverName = serverName;
     }
-}
\ No newline at end of file
+
+    EventManager getEventManager() {
+        return eventManager;
+    }
+
+    RequestDataString getRequestDataString() {
+        return requestDataString;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public void setWorkerCount(int workerCount) {
+        if (state == ServerState.STARTED) {
+            throw new IllegalStateException("服务器已启动，无法修改工作循环数");
+        }
+        this.workerCount = workerCount;
+    }
+
+    public String getBalanceStrategy() {
+        return balanceStrategy;
+    }
+
+    public void setBalanceStrategy(String balanceStrategy) {
+        this.balanceStrategy = balanceStrategy;
+    }
+
+    public String getAcceptorMode() {
+        return acceptorMode;
+    }
+
+    public void setAcceptorMode(String acceptorMode) {
+        this.acceptorMode = acceptorMode;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    public int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+
+    public void setMaxKeepAliveRequests(int maxKeepAliveRequests) {
+        this.maxKeepAliveRequests = maxKeepAliveRequests;
+    }
+
+    public int getMaxPipelinedRequests() {
+        return maxPipelinedRequests;
+    }
+
+    public void setMaxPipelinedRequests(int maxPipelinedRequests) {
+        this.maxPipelinedRequests = maxPipelinedRequests;
+    }
+
+    public long getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    public void setKeepAliveTimeout(long keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    public long getHeaderReadTimeout() {
+        return headerReadTimeout;
+    }
+
+    public void setHeaderReadTimeout(long headerReadTimeout) {
+        this.headerReadTimeout = headerReadTimeout;
+    }
+
+    public long getBodyReadTimeout() {
+        return bodyReadTimeout;
+    }
+
+    public void setBodyReadTimeout(long bodyReadTimeout) {
+        this.bodyReadTimeout = bodyReadTimeout;
+    }
+
+    public long getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    public void setWriteTimeout(long writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    public long getTimerTickMillis() {
+        return timerTickMillis;
+    }
+
+    public void setTimerTickMillis(long timerTickMillis) {
+        this.timerTickMillis = timerTickMillis;
+    }
+
+    public int getTimerWheelSize() {
+        return timerWheelSize;
+    }
+
+    public void setTimerWheelSize(int timerWheelSize) {
+        this.timerWheelSize = timerWheelSize;
+    }
+
+    /**
+     * 获取连接数限制器，可用于监控当前连接数
+     */
+    public ConnectionGovernor getConnectionGovernor() {
+        return connectionGovernor;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerAddress() {
+        return maxConnectionsPerAddress;
+    }
+
+    public void setMaxConnectionsPerAddress(int maxConnectionsPerAddress) {
+        this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+    }
+
+    /**
+     * 获取读缓冲区池，可用于监控命中率
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    public int getMaxHeaderSize() {
+        return maxHeaderSize;
+    }
+
+    public void setMaxHeaderSize(int maxHeaderSize) {
+        this.maxHeaderSize = maxHeaderSize;
+    }
+
+    public int getMaxHeaderCount() {
+        return maxHeaderCount;
+    }
+
+    public void setMaxHeaderCount(int maxHeaderCount) {
+        this.maxHeaderCount = maxHeaderCount;
+    }
+
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public void setMaxBodySize(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    public int getMaxInMemoryBodySize() {
+        return maxInMemoryBodySize;
+    }
+
+    public void setMaxInMemoryBodySize(int maxInMemoryBodySize) {
+        this.maxInMemoryBodySize = maxInMemoryBodySize;
+    }
+
+    public int getResponseBufferSize() {
+        return responseBufferSize;
+    }
+
+    public void setResponseBufferSize(int responseBufferSize) {
+        this.responseBufferSize = responseBufferSize;
+    }
+
+    public long getMaxPendingWriteBytes() {
+        return maxPendingWriteBytes;
+    }
+
+    public void setMaxPendingWriteBytes(long maxPendingWriteBytes) {
+        this.maxPendingWriteBytes = maxPendingWriteBytes;
+    }
+
+    public boolean isDirectBuffers() {
+        return directBuffers;
+    }
+
+    public void setDirectBuffers(boolean directBuffers) {
+        this.directBuffers = directBuffers;
+    }
+
+    public int getMaxPooledBuffers() {
+        return maxPooledBuffers;
+    }
+
+    public void setMaxPooledBuffers(int maxPooledBuffers) {
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+}
@@ -0,0 +1,148 @@
+package server.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 哈希时间轮，由事件循环线程驱动，用于连接的各类超时
+ * 时间按固定的刻度划分，每个刻度对应轮上的一个槽，定时任务按到期刻度挂到槽的双向链表上，
+ * 调度和取消都是O(1)操作；事件循环每次醒来时推进时间轮，执行已到期槽上的任务。
+ * 不是线程安全的，只能在所属事件循环线程中使用
+ */
+class TimingWheel {
+    private final long tickMillis;
+    private final Timeout[] buckets;
+    private final int mask;
+    // 创建时的单调时钟读数（纳秒），不受系统时间调整的影响
+    private final long startNanos;
+    // 下一个要处理的刻度
+    private long currentTick = 0;
+    private int size = 0;
+    private final List<Timeout> expired = new ArrayList<>();
+
+    /**
+     * @param tickMillis 刻度时长（毫秒），即超时精度
+     * @param wheelSize 槽数，会向上取整为2的幂
+     */
+    TimingWheel(long tickMillis, int wheelSize) {
+        this.tickMillis = Math.max(1, tickMillis);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 时间轮创建以来经过的毫秒数
+     */
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    long getTickMillis() {
+        return tickMillis;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 调度定时任务，任务已在时间轮中时先取消原来的调度
+     * @param timeout 定时任务
+     * @param delayMillis 延迟时间（毫秒）
+     */
+    void schedule(Timeout timeout, long delayMillis) {
+        cancel(timeout);
+        long deadlineTick = (elapsedMillis() + delayMillis + tickMillis - 1) / tickMillis;
+        // 到期刻度已处理过时挂到下一个要处理的刻度上，否则要等时间轮再转一圈
+        timeout.deadlineTick = Math.max(deadlineTick, currentTick);
+        int index = (int) (timeout.deadlineTick & mask);
+        timeout.bucket = index;
+        timeout.prev = null;
+        timeout.next = buckets[index];
+        if (buckets[index] != null) {
+            buckets[index].prev = timeout;
+        }
+        buckets[index] = timeout;
+        size++;
+    }
+
+    /**
+     * 取消定时任务，任务未调度时什么也不做
+     */
+    void cancel(Timeout timeout) {
+        if (timeout.bucket < 0) {
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+        size--;
+    }
+
+    /**
+     * 推进时间轮到当前时间，执行所有已到期的任务
+     */
+    void advance() {
+        long targetTick = elapsedMillis() / tickMillis;
+        if (targetTick < currentTick) {
+            return;
+        }
+        // 间隔超过一圈时每个槽只需处理一次
+        long lastTick = Math.min(targetTick, currentTick + mask);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            Timeout timeout = buckets[(int) (tick & mask)];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.deadlineTick <= targetTick) {
+                    cancel(timeout);
+                    expired.add(timeout);
+                }
+                timeout = next;
+            }
+        }
+        currentTick = targetTick + 1;
+        // 先摘下所有到期任务再执行，任务中可以重新调度或取消其他任务
+        for (Timeout timeout : expired) {
+            if (timeout.isScheduled()) {
+                // 已被之前执行的任务重新调度
+                continue;
+            }
+            try {
+                timeout.task.run();
+            } catch (Exception e) {
+                System.err.println("执行超时任务异常: " + e.getMessage());
+            }
+        }
+        expired.clear();
+    }
+
+    /**
+     * 可重复调度的定时任务，作为链表节点直接挂在时间轮的槽上，调度时不产生分配
+     */
+    static final class Timeout {
+        private final Runnable task;
+        private long deadlineTick;
+        private int bucket = -1;
+        private Timeout prev;
+        private Timeout next;
+
+        Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        boolean isScheduled() {
+            return bucket >= 0;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package server.impl;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 编译后的URL路由表，按Servlet规范的优先级匹配：精确匹配 > 最长路径前缀（/x/*） > 扩展名（*.do） > 默认（/）
+ * 精确路径和路径前缀存放在同一棵基数树中，扩展名存放在另一棵基数树中，查找只沿请求路径走一遍，不分配对象。
+ * 路由表创建后不再修改，映射变化时由容器重新编译并整体替换
+ */
+public class UrlRouter {
+    private final Node pathTree = new Node("");
+    private final Node extensionTree = new Node("");
+    private String defaultServlet;
+
+    /**
+     * @param mappings URL模式到Servlet名称的映射
+     */
+    public UrlRouter(Map<String, String> mappings) {
+        for (Map.Entry<String, String> entry : mappings.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void add(String pattern, String servletName) {
+        if (pattern.equals("/")) {
+            defaultServlet = servletName;
+        } else if (pattern.isEmpty()) {
+            // 空模式只匹配应用根路径
+            insert(pathTree, "/").exact = servletName;
+        } else if (pattern.startsWith("*.")) {
+            insert(extensionTree, pattern.substring(2)).exact = servletName;
+        } else if (pattern.startsWith("/") && pattern.endsWith("/*")) {
+            // /x/*匹配/x本身和/x/下的路径，/*的前缀为空串，匹配所有路径
+            insert(pathTree, pattern.substring(0, pattern.length() - 2)).prefix = servletName;
+        } else if (pattern.startsWith("/") && !pattern.contains("*")) {
+            insert(pathTree, pattern).exact = servletName;
+        } else {
+            throw new IllegalArgumentException("无效的URL模式: " + pattern);
+        }
+    }
+
+    /**
+     * 插入键并返回对应的节点，边上的标签与键部分相同时拆分为公共前缀和剩余部分
+     */
+    private static Node insert(Node root, String key) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position));
+                node.addChild(child);
+                return child;
+            }
+            String label = child.label;
+            int common = 0;
+            while (common < label.length() && position + common < key.length()
+                    && label.charAt(common) == key.charAt(position + common)) {
+                common++;
+            }
+            if (common < label.length()) {
+                Node middle = new Node(label.substring(0, common));
+                child.label = label.substring(common);
+                middle.addChild(child);
+                node.replaceChild(middle);
+                child = middle;
+            }
+            node = child;
+            position += common;
+        }
+        return node;
+    }
+
+    /**
+     * 根据请求路径查找Servlet名称
+     * @param path 请求路径，不含查询参数
+     * @return Servlet名称，没有匹配的映射时返回null
+     */
+    public String match(String path) {
+        int length = path.length();
+        String prefixMatch = null;
+        Node node = pathTree;
+        int position = 0;
+        while (true) {
+            // 路径前缀只在路径段的边界上生效，/static/*不匹配/staticfoo
+            if (node.prefix != null && (position == length || path.charAt(position) == '/')) {
+                prefixMatch = node.prefix;
+            }
+            if (position == length) {
+                if (node.exact != null) {
+                    return node.exact;
+                }
+                break;
+            }
+            Node child = node.child(path.charAt(position));
+            if (child == null || !path.regionMatches(position, child.label, 0, child.label.length())) {
+                break;
+            }
+            position += child.label.length();
+            node = child;
+        }
+        if (prefixMatch != null) {
+            return prefixMatch;
+        }
+        String extensionMatch = matchExtension(path);
+        return extensionMatch != null ? extensionMatch : defaultServlet;
+    }
+
+    /**
+     * 按最后一个路径段的扩展名匹配
+     */
+    private String matchExtension(String path) {
+        int dot = -1;
+        for (int i = path.length() - 1; i >= 0; i--) {
+            char c = path.charAt(i);
+            if (c == '/') {
+                break;
+            }
+            if (c == '.') {
+                dot = i;
+                break;
+            }
+        }
+        if (dot < 0) {
+            return null;
+        }
+        Node node = extensionTree;
+        int position = dot + 1;
+        while (position < path.length()) {
+            Node child = node.child(path.charAt(position));
+            if (child == null || !path.regionMatches(position, child.label, 0, child.label.length())) {
+                return null;
+            }
+            position += child.label.length();
+            node = child;
+        }
+        return node.exact;
+    }
+
+    public String getDefaultServlet() {
+        return defaultServlet;
+    }
+
+    /**
+     * 基数树节点，子节点按边标签的首字符排序，以二分查找定位
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private String label;
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        // 以该节点结束的精确映射（扩展名树中为扩展名映射）
+        private String exact;
+        // 以该节点为前缀的路径前缀映射
+        private String prefix;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private void addChild(Node child) {
+            char c = child.label.charAt(0);
+            int index = -Arrays.binarySearch(keys, c) - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newKeys[index] = c;
+            newChildren[index] = child;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private void replaceChild(Node child) {
+            children[Arrays.binarySearch(keys, child.label.charAt(0))] = child;
+        }
+    }
+}
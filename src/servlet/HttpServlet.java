@@ -35,6 +35,9 @@ public abstract class HttpServlet implements Servlet {
             case "GET":
                 doGet(request, response);
                 break;
+            case "HEAD":
+                doHead(request, response);
+                break;
             case "POST":
                 doPost(request, response);
                 break;
@@ -60,6 +63,13 @@ public abstract class HttpServlet implements Servlet {
         response.finish();
     }
 
+    /**
+     * 处理HEAD请求，默认按GET处理，响应只发送响应头
+     */
+    protected void doHead(HttpRequest request, HttpResponse response) {
+        doGet(request, response);
+    }
+
     /**
      * 处理POST请求
      */
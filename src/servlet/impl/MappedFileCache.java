@@ -0,0 +1,104 @@
+package servlet.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 小文件的内存映射缓存，按最近最少使用淘汰
+ * 映射的内容位于页缓存中，不占用Java堆；缓存项记录映射时文件的大小和修改时间，文件变化后重新映射
+ */
+public class MappedFileCache {
+    private final int maxEntries;
+    private final long maxBytes;
+    // 按访问顺序排列，最久未使用的在最前面
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * @param maxEntries 最多缓存的文件数
+     * @param maxBytes 缓存的文件总大小上限（字节）
+     */
+    public MappedFileCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取文件的映射缓冲区，未缓存或文件已变化时重新映射
+     * @param path 文件路径
+     * @param size 文件当前大小
+     * @param lastModified 文件当前修改时间
+     * @return 只读的映射缓冲区，调用者应使用duplicate后的副本
+     */
+    public MappedByteBuffer get(Path path, long size, long lastModified) throws IOException {
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+                hitCount++;
+                return entry.buffer;
+            }
+            missCount++;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        synchronized (this) {
+            Entry previous = entries.put(path, new Entry(buffer, size, lastModified));
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            totalBytes += size;
+            evict();
+        }
+        return buffer;
+    }
+
+    /**
+     * 淘汰最久未使用的缓存项，直到满足数量和大小上限。映射在缓冲区被回收后才解除
+     */
+    private void evict() {
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().size;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * 获取缓存信息
+     * @return 缓存信息字符串
+     */
+    public synchronized String getInfo() {
+        return String.format("映射缓存信息: 文件数=%d/%d, 总大小=%d/%d, 命中=%d, 未命中=%d",
+                entries.size(), maxEntries, totalBytes, maxBytes, hitCount, missCount);
+    }
+
+    private static final class Entry {
+        private final MappedByteBuffer buffer;
+        private final long size;
+        private final long lastModified;
+
+        private Entry(MappedByteBuffer buffer, long size, long lastModified) {
+            this.buffer = buffer;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package servlet.impl;
+
+import http.HttpRequest;
+import http.HttpResponse;
+import http.impl.ResponseCompressor;
+import servlet.HttpServlet;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 静态资源Servlet，通过ContainerImpl.mapServlet映射到URL前缀（如/static/*）
+ * 小文件映射到内存后缓存，大文件在NIO连接上以FileChannel.transferTo零拷贝发送，文件内容都不进入Java堆。
+ * 支持Last-Modified/If-Modified-Since、强ETag/If-None-Match、单个区间的Range/If-Range请求。
+ * 客户端接受gzip且存在不旧于原文件的.gz文件时直接发送预压缩的内容，不必每次请求都重新压缩
+ * 初始化参数：
+ * root - 资源根目录，默认src/webapp/static
+ * urlPrefix - 映射的URL前缀，计算文件路径时去掉，默认为空
+ * mmapMaxFileSize - 不超过该大小（字节）的文件映射到内存并缓存，默认262144
+ * cacheMaxEntries / cacheMaxBytes - 映射缓存的文件数和总大小上限，默认1024个、64MB
+ * cacheControl - Cache-Control响应头的值，默认不设置
+ * precompressed - 是否查找.gz预压缩文件，默认true
+ */
+public class StaticResourceServlet extends HttpServlet {
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("html", "text/html;charset=UTF-8");
+        CONTENT_TYPES.put("htm", "text/html;charset=UTF-8");
+        CONTENT_TYPES.put("css", "text/css;charset=UTF-8");
+        CONTENT_TYPES.put("js", "application/javascript;charset=UTF-8");
+        CONTENT_TYPES.put("json", "application/json;charset=UTF-8");
+        CONTENT_TYPES.put("map", "application/json;charset=UTF-8");
+        CONTENT_TYPES.put("txt", "text/plain;charset=UTF-8");
+        CONTENT_TYPES.put("xml", "application/xml;charset=UTF-8");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("jpg", "image/jpeg");
+        CONTENT_TYPES.put("jpeg", "image/jpeg");
+        CONTENT_TYPES.put("gif", "image/gif");
+        CONTENT_TYPES.put("webp", "image/webp");
+        CONTENT_TYPES.put("ico", "image/x-icon");
+        CONTENT_TYPES.put("woff", "font/woff");
+        CONTENT_TYPES.put("woff2", "font/woff2");
+        CONTENT_TYPES.put("ttf", "font/ttf");
+        CONTENT_TYPES.put("pdf", "application/pdf");
+        CONTENT_TYPES.put("mp4", "video/mp4");
+        CONTENT_TYPES.put("wasm", "application/wasm");
+    }
+
+    private Path root;
+    private String urlPrefix;
+    private long mmapMaxFileSize;
+    private String cacheControl;
+    private boolean precompressed;
+    private MappedFileCache cache;
+
+    @Override
+    protected void init() {
+        root = Paths.get(getParameter("root", "src/webapp/static")).toAbsolutePath().normalize();
+        urlPrefix = getParameter("urlPrefix", "");
+        mmapMaxFileSize = Long.parseLong(getParameter("mmapMaxFileSize", "262144"));
+        cacheControl = getParameter("cacheControl", null);
+        precompressed = Boolean.parseBoolean(getParameter("precompressed", "true"));
+        cache = new MappedFileCache(Integer.parseInt(getParameter("cacheMaxEntries", "1024")),
+                Long.parseLong(getParameter("cacheMaxBytes", String.valueOf(64L * 1024 * 1024))));
+        System.out.println("StaticResourceServlet初始化完成，资源目录: " + root);
+    }
+
+    private String getParameter(String name, String defaultValue) {
+        String value = getServletConfig() != null ? getServletConfig().getInitParameter(name) : null;
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    protected void doGet(HttpRequest request, HttpResponse response) {
+        Path file = resolve(request.getUrl());
+        if (file == null) {
+            sendStatus(response, 404);
+            return;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.isDirectory()) {
+                file = file.resolve("index.html");
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            }
+        } catch (NoSuchFileException e) {
+            sendStatus(response, 404);
+            return;
+        } catch (IOException e) {
+            System.err.println("读取文件属性失败: " + e.getMessage());
+            sendStatus(response, 404);
+            return;
+        }
+        if (!attributes.isRegularFile() || !Files.isReadable(file)) {
+            sendStatus(response, 404);
+            return;
+        }
+
+        String contentType = getContentType(file);
+        String contentEncoding = null;
+        ResponseCompressor compressor = ResponseCompressor.getInstance();
+        if (compressor.isEnabled() && compressor.isCompressible(contentType)) {
+            // 同一URL按Accept-Encoding有不同的表示
+            compressor.addVary(response);
+            if (precompressed && "gzip".equals(compressor.negotiate(request.getHeader("Accept-Encoding")))) {
+                Path gzipFile = file.resolveSibling(file.getFileName() + ".gz");
+                BasicFileAttributes gzipAttributes = readAttributes(gzipFile);
+                if (gzipAttributes != null && gzipAttributes.isRegularFile()
+                        && gzipAttributes.lastModifiedTime().compareTo(attributes.lastModifiedTime()) >= 0) {
+                    file = gzipFile;
+                    attributes = gzipAttributes;
+                    contentEncoding = "gzip";
+                }
+            }
+        }
+
+        long size = attributes.size();
+        // HTTP日期只精确到秒
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        // 预压缩的表示使用单独的实体标签，区间请求不会把不同编码的字节拼接在一起
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified)
+                + (contentEncoding != null ? "-" + contentEncoding : "") + "\"";
+        String lastModifiedText = HTTP_DATE.format(Instant.ofEpochMilli(lastModified));
+
+        response.setHeader("Content-Type", contentType);
+        if (contentEncoding != null) {
+            response.setHeader("Content-Encoding", contentEncoding);
+        }
+        response.setHeader("Last-Modified", lastModifiedText);
+        response.setHeader("ETag", etag);
+        response.setHeader("Accept-Ranges", "bytes");
+        if (cacheControl != null) {
+            response.setHeader("Cache-Control", cacheControl);
+        }
+
+        // 条件请求：If-Match/If-Unmodified-Since不满足时返回412，If-None-Match/If-Modified-Since满足时返回304
+        String ifMatch = request.getHeader("If-Match");
+        if (ifMatch != null ? !matchesEtag(ifMatch, etag)
+                : isModifiedSince(request.getHeader("If-Unmodified-Since"), lastModified, false)) {
+            sendStatus(response, 412);
+            return;
+        }
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null ? matchesEtag(ifNoneMatch, etag)
+                : !isModifiedSince(request.getHeader("If-Modified-Since"), lastModified, true)) {
+            response.setStatusCode(304);
+            response.setBody("");
+            response.finish();
+            return;
+        }
+
+        // 区间请求，If-Range与当前文件不一致时忽略Range返回整个文件
+        long start = 0;
+        long length = size;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && (ifRange == null || ifRange.equals(etag) || ifRange.equals(lastModifiedText))) {
+            long[] bounds = parseRange(range, size);
+            if (bounds != null && bounds.length == 0) {
+                response.setHeader("Content-Range", "bytes */" + size);
+                sendStatus(response, 416);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                length = bounds[1] - bounds[0] + 1;
+                response.setStatusCode(206);
+                response.setHeader("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+            }
+        }
+
+        try {
+            if (size <= mmapMaxFileSize) {
+                ByteBuffer body = cache.get(file, size, attributes.lastModifiedTime().toMillis()).duplicate();
+                body.position((int) start);
+                body.limit((int) (start + length));
+                response.setBody(body);
+            } else {
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                response.setFileBody(channel, start, length);
+            }
+        } catch (IOException e) {
+            System.err.println("读取文件失败: " + file + " - " + e.getMessage());
+            response.setStatusCode(500);
+            response.setBody("<html><body><h1>500 Internal Server Error</h1></body></html>");
+        }
+        response.finish();
+    }
+
+    /**
+     * 把请求路径解析为资源目录下的文件，路径非法或超出资源目录时返回null
+     */
+    private Path resolve(String url) {
+        if (url == null) {
+            return null;
+        }
+        String path = url;
+        if (!urlPrefix.isEmpty() && path.startsWith(urlPrefix)) {
+            path = path.substring(urlPrefix.length());
+        }
+        try {
+            // 保留路径中的+号
+            path = URLDecoder.decode(path.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return null;
+        }
+        if (path.indexOf('\0') >= 0) {
+            return null;
+        }
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        try {
+            Path file = root.resolve(path).normalize();
+            // 防止通过../访问资源目录之外的文件
+            return file.startsWith(root) ? file : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String getContentType(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String type = dot >= 0 ? CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+        return type != null ? type : "application/octet-stream";
+    }
+
+    /**
+     * 判断If-Match/If-None-Match中的实体标签列表是否包含当前ETag，弱标签不参与比较
+     */
+    private static boolean matchesEtag(String header, String etag) {
+        for (String tag : header.split(",")) {
+            String value = tag.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断文件在请求头给出的时间之后是否被修改过
+     * @param header If-Modified-Since或If-Unmodified-Since的值
+     * @param valueIfAbsent 请求头不存在或无法解析时的返回值
+     */
+    private static boolean isModifiedSince(String header, long lastModified, boolean valueIfAbsent) {
+        if (header == null) {
+            return valueIfAbsent;
+        }
+        try {
+            long since = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+            return lastModified > since;
+        } catch (DateTimeParseException e) {
+            return valueIfAbsent;
+        }
+    }
+
+    /**
+     * 解析单个字节区间：bytes=start-end、bytes=start-、bytes=-suffix
+     * @return 区间的起止位置（包含），格式不支持（含多个区间）时返回null，区间无法满足时返回空数组
+     */
+    private static long[] parseRange(String header, long size) {
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // 最后suffix个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+                if (end < start && !last.isEmpty() && Long.parseLong(last) < start) {
+                    return null;
+                }
+            }
+            if (start >= size || size == 0) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void sendStatus(HttpResponse response, int statusCode) {
+        response.setStatusCode(statusCode);
+        if (statusCode >= 400) {
+            // 错误页面不是文件的表示，不能沿用文件的类型、编码和实体标签
+            response.setHeader("Content-Type", "text/html;charset=UTF-8");
+            response.removeHeader("Content-Encoding");
+            response.removeHeader("ETag");
+            response.removeHeader("Accept-Ranges");
+        }
+        response.setBody(statusCode >= 400
+                ? "<html><body><h1>" + statusCode + "</h1></body></html>" : "");
+        response.finish();
+    }
+
+    /**
+     * 获取映射缓存，可用于监控命中率
+     */
+    public MappedFileCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String getServletInfo() {
+        return "StaticResourceServlet/1.0";
+    }
+
+    @Override
+    public void destroy() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
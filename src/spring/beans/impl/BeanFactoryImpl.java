@@ -138,10 +138,12 @@ public class BeanFactoryImpl implements BeanFactory {
      * @return Bean实例
      */
     private Object createBeanByFactoryMethod(Class<?> beanClass, BeanDefinition beanDefinition) 
-            throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+            throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
         
-        // 处理静态工厂方法
-        return beanClass.getMethod(beanDefinition.getFactoryMethodName()).invoke(null);
+        // 处理静态工厂方法，创建后同样进行属性注入
+        Object bean = beanClass.getMethod(beanDefinition.getFactoryMethodName()).invoke(null);
+        injectProperties(bean, beanDefinition.getPropertyValues());
+        return bean;
     }
     
     /**
@@ -213,8 +215,8 @@ public class BeanFactoryImpl implements BeanFactory {
                 BeanDefinition.PropertyValue propertyValue = entry.getValue();
                 
                 try {
-                    // 获取字段
-                    Field field = beanClass.getDeclaredField(propertyName);
+                    // 获取字段，包括父类中声明的字段
+                    Field field = findField(beanClass, propertyName);
                     field.setAccessible(true);
                     
                     // 注入属性值
@@ -224,8 +226,8 @@ public class BeanFactoryImpl implements BeanFactory {
                         field.set(bean, refBean);
                         System.out.println("Autowired field: " + propertyName + " -> " + refBean.getClass().getName());
                     } else {
-                        // 处理值类型属性
-                        field.set(bean, propertyValue.getValue());
+                        // 处理值类型属性，按字段类型转换配置中的字符串
+                        field.set(bean, convertValue(propertyValue.getValue(), field.getType()));
                     }
                     
                 } catch (NoSuchFieldException e) {
@@ -250,6 +252,46 @@ public class BeanFactoryImpl implements BeanFactory {
         }
     }
     
+    /**
+     * 在类及其父类中查找字段
+     * @param beanClass Bean类
+     * @param name 字段名
+     * @return 字段
+     */
+    private Field findField(Class<?> beanClass, String name) throws NoSuchFieldException {
+        for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                return type.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // 继续在父类中查找
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    /**
+     * 将配置文件中的字符串值转换为字段类型
+     * @param value 原始值
+     * @param targetType 目标类型
+     * @return 转换后的值
+     */
+    private Object convertValue(Object value, Class<?> targetType) {
+        if (!(value instanceof String) || targetType == String.class) {
+            return value;
+        }
+        String text = ((String) value).trim();
+        if (targetType == int.class || targetType == Integer.class) {
+            return Integer.parseInt(text);
+        } else if (targetType == long.class || targetType == Long.class) {
+            return Long.parseLong(text);
+        } else if (targetType == boolean.class || targetType == Boolean.class) {
+            return Boolean.parseBoolean(text);
+        } else if (targetType == double.class || targetType == Double.class) {
+            return Double.parseDouble(text);
+        }
+        return value;
+    }
+    
     /**
      * 处理基于注解的字段注入
      * @param bean Bean实例
@@ -2,9 +2,9 @@ package spring.mvc;
 
 import http.HttpRequest;
 import http.HttpResponse;
+import http.impl.HttpResponseEncoder;
 import servlet.HttpServlet;
 import spring.SpringContext;
-import spring.mvc.annotation.ResponseBody;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,11 +18,13 @@ public class DispatcherServlet extends HttpServlet {
     private HandlerMapping handlerMapping;
     private HandlerAdapter handlerAdapter;
     private ViewResolver viewResolver;
+    private JsonWriter jsonWriter;
     
     public DispatcherServlet() {
         this.handlerMapping = new HandlerMapping();
         this.handlerAdapter = new HandlerAdapter();
         this.viewResolver = new ViewResolver();
+        this.jsonWriter = new JsonWriter();
     }
     
     @Override
@@ -79,28 +81,25 @@ public class DispatcherServlet extends HttpServlet {
             // 获取请求方法
             String requestMethod = request.getMethod();
             
-            // 获取请求参数
-            Map<String, String> requestParameters = request.getParameters();
-            
-            // 获取请求体
-            String requestBody = request.getBody();
-            
             System.out.println("DispatcherServlet received request: " + requestMethod + " " + requestUrl);
             
-            // 根据请求URL查找对应的处理器方法
-            HandlerMapping.HandlerMethod handlerMethod = handlerMapping.getHandlerMethod(requestUrl);
+            // 根据请求URL和请求条件查找对应的处理器方法，同时提取路径变量
+            HandlerMapping.HandlerLookup lookup = handlerMapping.getHandler(request);
             
-            if (handlerMethod != null) {
-                // 调用处理器方法
-                Object result = handlerAdapter.handle(handlerMethod, requestUrl, requestParameters, requestBody);
+            if (lookup != null && lookup.getHandlerMethod() != null) {
+                HandlerMapping.HandlerMethod handlerMethod = lookup.getHandlerMethod();
+                // 调用处理器方法，请求体只在有@RequestBody参数时读取
+                Map<String, Object> model = new HashMap<>();
+                Object result = handlerAdapter.handle(handlerMethod, request, response, lookup.getPathVariables(), model);
                 
                 // 处理响应结果
-                handleResponse(handlerMethod, result, request, response);
+                handleResponse(handlerMethod, result, model, lookup.getProducedType(), request, response);
+            } else if (lookup != null) {
+                // URL匹配但请求方法、内容类型等条件不满足，由路由直接给出状态码
+                sendError(response, lookup.getStatusCode(), lookup.getAllow());
             } else {
                 // 如果没有找到对应的处理器方法，返回404错误
-                response.setStatusCode(404);
-                response.setBody("<html><body><h1>404 Not Found</h1></body></html>");
-                response.finish();
+                sendError(response, 404, null);
             }
             
         } catch (Exception e) {
@@ -109,6 +108,11 @@ public class DispatcherServlet extends HttpServlet {
             e.printStackTrace();
             
             try {
+                // 响应已开始发送时无法再返回500，中止响应
+                if (response.isCommitted()) {
+                    response.abort();
+                    return;
+                }
                 // 返回500错误
                 response.setStatusCode(500);
                 response.setBody("<html><body><h1>500 Internal Server Error</h1><p>" + e.getMessage() + "</p></body></html>");
@@ -119,23 +123,45 @@ public class DispatcherServlet extends HttpServlet {
         }
     }
     
+    /**
+     * 发送错误响应
+     * @param response 响应对象
+     * @param statusCode 状态码
+     * @param allow 405响应的Allow头，可以为null
+     */
+    private void sendError(HttpResponse response, int statusCode, String allow) {
+        response.setStatusCode(statusCode);
+        if (allow != null) {
+            response.setHeader("Allow", allow);
+        }
+        String status = statusCode + " " + HttpResponseEncoder.getStatusMessage(statusCode);
+        response.setHeader("Content-Type", "text/html;charset=UTF-8");
+        response.setBody("<html><body><h1>" + status + "</h1></body></html>");
+        response.finish();
+    }
+    
     /**
      * 处理响应结果
      * @param handlerMethod 处理器方法信息
      * @param result 方法返回值
+     * @param model 处理器方法填充的视图模型
+     * @param producedType 按produces条件协商出的响应内容类型，可以为null
      * @param request 请求对象
      * @param response 响应对象
      * @throws Exception 处理过程中可能抛出的异常
      */
-    private void handleResponse(HandlerMapping.HandlerMethod handlerMethod, Object result, HttpRequest request, HttpResponse response) throws Exception {
-        // 检查方法或类是否带有ResponseBody注解
-        boolean hasResponseBody = handlerMethod.getMethod().isAnnotationPresent(ResponseBody.class) ||
-                                 handlerMethod.getBeanInstance().getClass().isAnnotationPresent(ResponseBody.class);
-        
-        if (hasResponseBody) {
-            // 如果带有ResponseBody注解，直接将结果作为响应体返回
-            response.setHeader("Content-Type", "application/json;charset=UTF-8");
-            response.setBody(result != null ? result.toString() : "");
+    private void handleResponse(HandlerMapping.HandlerMethod handlerMethod, Object result, Map<String, Object> model, String producedType, HttpRequest request, HttpResponse response) throws Exception {
+        // 方法或类是否带有ResponseBody注解在注册时已确定
+        if (handlerMethod.isResponseBody()) {
+            if (result instanceof CharSequence) {
+                // 字符串结果作为文本原样返回
+                response.setHeader("Content-Type", (producedType != null ? producedType : "text/plain") + ";charset=UTF-8");
+                response.setBody(result.toString());
+            } else {
+                // 其他结果序列化为JSON，直接写入响应的输出流
+                response.setHeader("Content-Type", (producedType != null ? producedType : "application/json") + ";charset=UTF-8");
+                jsonWriter.write(result, response.getOutputStream());
+            }
             response.finish();
         } else {
             // 如果没有ResponseBody注解，将结果作为视图名称或模型数据处理
@@ -143,8 +169,8 @@ public class DispatcherServlet extends HttpServlet {
                 // 如果返回值是字符串，将其作为视图名称
                 String viewName = (String) result;
                 
-                // 解析视图并渲染
-                ViewResolver.View view = viewResolver.resolveView(viewName, new HashMap<>());
+                // 解析视图并渲染，模型为处理器方法填充的数据
+                ViewResolver.View view = viewResolver.resolveView(viewName, model);
                 String renderedView = view.render();
                 
                 // 设置响应内容
@@ -154,7 +180,8 @@ public class DispatcherServlet extends HttpServlet {
             } else if (result instanceof Map) {
                 // 如果返回值是Map，将其作为模型数据，默认使用请求URL作为视图名称
                 @SuppressWarnings("unchecked")
-                Map<String, Object> model = (Map<String, Object>) result;
+                Map<String, Object> resultModel = (Map<String, Object>) result;
+                model.putAll(resultModel);
                 String viewName = request.getUrl().substring(1).replace("/", "-");
                 
                 // 解析视图并渲染
@@ -170,7 +197,7 @@ public class DispatcherServlet extends HttpServlet {
                 String viewName = request.getUrl().substring(1).replace("/", "-");
                 
                 // 解析视图并渲染
-                ViewResolver.View view = viewResolver.resolveView(viewName, new HashMap<>());
+                ViewResolver.View view = viewResolver.resolveView(viewName, model);
                 String renderedView = view.render();
                 
                 // 设置响应内容
@@ -204,4 +231,12 @@ public class DispatcherServlet extends HttpServlet {
     public ViewResolver getViewResolver() {
         return viewResolver;
     }
+    
+    /**
+     * 获取JsonWriter
+     * @return JsonWriter
+     */
+    public JsonWriter getJsonWriter() {
+        return jsonWriter;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package spring.mvc;
+
+import http.HttpRequest;
+import http.HttpResponse;
+import spring.mvc.annotation.PathVariable;
+import spring.mvc.annotation.RequestBody;
+import spring.mvc.annotation.RequestParam;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 处理器方法的调用器，在注册时编译：每个参数预先解析为一个参数绑定器，参数类型的转换函数和默认值也预先确定，
+ * 处理器方法转换为绑定了Bean实例的MethodHandle。每次请求只需执行各参数的绑定器，再直接调用一次MethodHandle
+ */
+public class HandlerInvoker {
+    private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = new HashMap<>();
+
+    static {
+        PRIMITIVE_DEFAULTS.put(boolean.class, false);
+        PRIMITIVE_DEFAULTS.put(char.class, '\0');
+        PRIMITIVE_DEFAULTS.put(byte.class, (byte) 0);
+        PRIMITIVE_DEFAULTS.put(short.class, (short) 0);
+        PRIMITIVE_DEFAULTS.put(int.class, 0);
+        PRIMITIVE_DEFAULTS.put(long.class, 0L);
+        PRIMITIVE_DEFAULTS.put(float.class, 0f);
+        PRIMITIVE_DEFAULTS.put(double.class, 0d);
+    }
+
+    private final ArgumentBinder[] binders;
+    // 签名为(Object[])Object，参数数组展开后调用处理器方法
+    private final MethodHandle invoker;
+
+    /**
+     * @param beanInstance 控制器实例
+     * @param method 处理器方法
+     */
+    public HandlerInvoker(Object beanInstance, Method method) {
+        Parameter[] parameters = method.getParameters();
+        this.binders = new ArgumentBinder[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            binders[i] = createBinder(parameters[i]);
+        }
+        try {
+            method.setAccessible(true);
+            this.invoker = MethodHandles.lookup().unreflect(method)
+                    .bindTo(beanInstance)
+                    .asSpreader(Object[].class, parameters.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问处理器方法: " + method, e);
+        }
+    }
+
+    /**
+     * 绑定参数并调用处理器方法
+     * @param context 调用上下文
+     * @return 方法返回值，void方法返回null
+     * @throws Exception 参数绑定失败或处理器方法抛出的异常
+     */
+    public Object invoke(InvocationContext context) throws Exception {
+        Object[] args = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            args[i] = binders[i].bind(context);
+        }
+        try {
+            return invoker.invokeExact(args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * 按参数的注解和类型选择绑定器
+     */
+    private static ArgumentBinder createBinder(Parameter parameter) {
+        Class<?> parameterType = parameter.getType();
+        Converter converter = converterFor(parameterType);
+        Object defaultValue = defaultValueOf(parameterType);
+
+        // 处理@PathVariable注解
+        PathVariable pathVariable = parameter.getAnnotation(PathVariable.class);
+        if (pathVariable != null) {
+            String name = pathVariable.value().isEmpty() ? parameter.getName() : pathVariable.value();
+            return context -> {
+                String value = context.getPathVariables().get(name);
+                return value != null ? converter.convert(value) : defaultValue;
+            };
+        }
+
+        // 处理@RequestParam注解
+        RequestParam requestParam = parameter.getAnnotation(RequestParam.class);
+        if (requestParam != null) {
+            String name = requestParam.value().isEmpty() ? parameter.getName() : requestParam.value();
+            boolean required = requestParam.required();
+            Object fallback = requestParam.defaultValue().isEmpty() ? defaultValue
+                    : converter.convert(requestParam.defaultValue());
+            return context -> {
+                String value = context.getParameter(name);
+                if (value != null) {
+                    return converter.convert(value);
+                }
+                if (required) {
+                    // 如果参数是必须的，但没有提供，抛出异常
+                    throw new RuntimeException("Required parameter '" + name + "' is not present");
+                }
+                return fallback;
+            };
+        }
+
+        // 处理@RequestBody注解
+        RequestBody requestBody = parameter.getAnnotation(RequestBody.class);
+        if (requestBody != null) {
+            boolean required = requestBody.required();
+            if (parameterType != String.class) {
+                // 这里可以添加JSON解析逻辑，例如使用Jackson或Gson
+                System.err.println("Warning: RequestBody conversion for type " + parameterType.getName() + " is not implemented");
+            }
+            return context -> {
+                String body = context.getRequest().getBody();
+                if (body == null || body.isEmpty()) {
+                    if (required) {
+                        throw new RuntimeException("Required request body is not present");
+                    }
+                    return null;
+                }
+                return parameterType == String.class ? body : null;
+            };
+        }
+
+        // 请求、响应和模型按类型绑定
+        if (HttpRequest.class.isAssignableFrom(parameterType)) {
+            return InvocationContext::getRequest;
+        }
+        if (HttpResponse.class.isAssignableFrom(parameterType)) {
+            return InvocationContext::getResponse;
+        }
+        if (parameterType == Map.class) {
+            return InvocationContext::getModel;
+        }
+
+        // 如果没有任何注解，尝试根据参数名称从请求参数中获取
+        String name = parameter.getName();
+        return context -> {
+            String value = context.getParameter(name);
+            return value != null ? converter.convert(value) : defaultValue;
+        };
+    }
+
+    /**
+     * 获取把字符串转换为指定类型的函数
+     */
+    private static Converter converterFor(Class<?> type) {
+        if (type == String.class || type == Object.class) {
+            return value -> value;
+        } else if (type == int.class || type == Integer.class) {
+            return Integer::valueOf;
+        } else if (type == long.class || type == Long.class) {
+            return Long::valueOf;
+        } else if (type == double.class || type == Double.class) {
+            return Double::valueOf;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Boolean::valueOf;
+        } else if (type == float.class || type == Float.class) {
+            return Float::valueOf;
+        } else if (type == short.class || type == Short.class) {
+            return Short::valueOf;
+        } else if (type == byte.class || type == Byte.class) {
+            return Byte::valueOf;
+        } else if (type == char.class || type == Character.class) {
+            return value -> value.charAt(0);
+        }
+        // 如果是其他类型，尝试通过带String参数的构造函数转换
+        try {
+            MethodHandle constructor = MethodHandles.publicLookup()
+                    .findConstructor(type, MethodType.methodType(void.class, String.class))
+                    .asType(MethodType.methodType(Object.class, String.class));
+            return value -> {
+                try {
+                    return constructor.invokeExact(value);
+                } catch (Throwable t) {
+                    System.err.println("Warning: Cannot convert parameter value '" + value + "' to type " + type.getName());
+                    return null;
+                }
+            };
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return value -> {
+                System.err.println("Warning: Cannot convert parameter value '" + value + "' to type " + type.getName());
+                return null;
+            };
+        }
+    }
+
+    /**
+     * 获取参数类型的默认值：基本类型为对应的零值，引用类型为null
+     */
+    private static Object defaultValueOf(Class<?> type) {
+        return type.isPrimitive() ? PRIMITIVE_DEFAULTS.get(type) : null;
+    }
+
+    /**
+     * 参数绑定器，从调用上下文中取出一个参数的值
+     */
+    private interface ArgumentBinder {
+        Object bind(InvocationContext context) throws Exception;
+    }
+
+    /**
+     * 字符串到参数类型的转换函数
+     */
+    private interface Converter {
+        Object convert(String value);
+    }
+
+    /**
+     * 一次处理器方法调用的上下文：请求、响应、路径变量和视图模型
+     */
+    public static class InvocationContext {
+        private final HttpRequest request;
+        private final HttpResponse response;
+        private final Map<String, String> pathVariables;
+        private final Map<String, Object> model;
+
+        public InvocationContext(HttpRequest request, HttpResponse response,
+                                 Map<String, String> pathVariables, Map<String, Object> model) {
+            this.request = request;
+            this.response = response;
+            this.pathVariables = pathVariables;
+            this.model = model;
+        }
+
+        public HttpRequest getRequest() {
+            return request;
+        }
+
+        public HttpResponse getResponse() {
+            return response;
+        }
+
+        public Map<String, String> getPathVariables() {
+            return pathVariables;
+        }
+
+        public Map<String, Object> getModel() {
+            return model;
+        }
+
+        /**
+         * 获取请求参数，没有时返回null
+         */
+        public String getParameter(String name) {
+            Map<String, String> parameters = request.getParameters();
+            return parameters != null ? parameters.get(name) : null;
+        }
+    }
+}
@@ -1,25 +1,30 @@
 package spring.mvc;
 
+import http.HttpRequest;
 import spring.mvc.annotation.RequestMapping;
+import spring.mvc.annotation.ResponseBody;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 请求映射处理器，用于将请求URL映射到对应的处理方法
+ * 同一URL模式可以按请求方法、参数、请求头和内容类型映射到不同的处理方法
  */
 public class HandlerMapping {
-    private final Map<String, HandlerMethod> handlerMethods;
-    private final Map<String, List<Pattern>> pathPatterns;
+    // 不含路径变量和通配符的URL，直接按URL查找
+    private final Map<String, HandlerMethodGroup> handlerMethods;
+    // 所有URL模式编译成的路由树，每个模式对应一组处理方法
+    private final RouteTrie<HandlerMethodGroup> routes;
+    // 按URL模式索引的处理方法组
+    private final Map<String, HandlerMethodGroup> groups;
     
     public HandlerMapping() {
         this.handlerMethods = new HashMap<>();
-        this.pathPatterns = new HashMap<>();
+        this.routes = new RouteTrie<>();
+        this.groups = new HashMap<>();
     }
     
     /**
@@ -64,58 +69,72 @@ public class HandlerMapping {
                     fullUrl = "/" + fullUrl;
                 }
                 
-                // 创建HandlerMethod
-                HandlerMethod handlerMethod = new HandlerMethod(beanName, beanInstance, method, methodMapping);
+                // 创建HandlerMethod，合并类和方法上的请求条件
+                HandlerMethod handlerMethod = new HandlerMethod(beanName, beanInstance, method, methodMapping,
+                        new RequestMappingInfo(classMapping, methodMapping));
                 
-                // 添加到映射中
-                handlerMethods.put(fullUrl, handlerMethod);
-                System.out.println("Registering handler method: " + fullUrl + " -> " + controllerClass.getName() + "." + method.getName());
-                
-                // 编译URL为正则表达式（用于处理路径变量）
-                String regexUrl = convertToRegex(fullUrl);
-                Pattern pattern = Pattern.compile(regexUrl);
-                
-                // 添加到路径模式映射中
-                pathPatterns.computeIfAbsent(fullUrl, k -> new ArrayList<>()).add(pattern);
+                // 同一URL模式的处理方法放在同一组中，模式中的路径变量在注册时解析一次
+                HandlerMethodGroup group = groups.get(fullUrl);
+                if (group == null) {
+                    group = new HandlerMethodGroup(fullUrl);
+                    HandlerMethodGroup previous = routes.add(fullUrl, group);
+                    if (previous != null) {
+                        throw new IllegalStateException("URL模式冲突: " + fullUrl + " 与 " + previous.getPattern());
+                    }
+                    groups.put(fullUrl, group);
+                    if (isLiteral(fullUrl)) {
+                        handlerMethods.put(fullUrl, group);
+                    }
+                }
+                group.add(handlerMethod);
                 
-                System.out.println("Registered handler method: " + fullUrl + " -> " + controllerClass.getName() + "." + method.getName());
+                System.out.println("Registered handler method: " + fullUrl + " " + handlerMethod.getMappingInfo() + " -> " + controllerClass.getName() + "." + method.getName());
             }
         }
     }
     
     /**
-     * 根据请求URL查找对应的处理方法
+     * 根据请求URL查找对应的处理方法，不考虑请求方法等条件
      * @param requestUrl 请求URL
      * @return 处理方法信息
      */
     public HandlerMethod getHandlerMethod(String requestUrl) {
+        HandlerMethodGroup group = handlerMethods.get(requestUrl);
+        if (group == null) {
+            RouteTrie.Match<HandlerMethodGroup> match = routes.match(requestUrl);
+            group = match != null ? match.getHandler() : null;
+        }
+        return group != null ? group.getFirst() : null;
+    }
+    
+    /**
+     * 根据请求查找对应的处理方法：先按URL找到处理方法组并提取路径变量，再按请求条件在组内选择
+     * @param request 请求
+     * @return 查找结果，没有匹配的URL模式时返回null；URL匹配但条件不满足时结果中带有错误状态码
+     */
+    public HandlerLookup getHandler(HttpRequest request) {
+        String requestUrl = request.getUrl();
         // 首先尝试精确匹配
-        HandlerMethod handlerMethod = handlerMethods.get(requestUrl);
-        if (handlerMethod != null) {
-            return handlerMethod;
+        HandlerMethodGroup group = handlerMethods.get(requestUrl);
+        if (group != null) {
+            return group.select(request, Collections.emptyMap());
         }
         
-        // 如果没有精确匹配，尝试正则表达式匹配（处理路径变量）
-        for (Map.Entry<String, List<Pattern>> entry : pathPatterns.entrySet()) {
-            for (Pattern pattern : entry.getValue()) {
-                Matcher matcher = pattern.matcher(requestUrl);
-                if (matcher.matches()) {
-                    return handlerMethods.get(entry.getKey());
-                }
-            }
+        // 没有精确匹配时沿路由树逐段匹配，字面量优先于路径变量，路径变量优先于通配符
+        RouteTrie.Match<HandlerMethodGroup> match = routes.match(requestUrl);
+        if (match == null) {
+            return null;
         }
-        
-        return null;
+        return match.getHandler().select(request, match.getPathVariables());
     }
     
     /**
-     * 将URL转换为正则表达式（用于处理路径变量）
+     * 判断URL是否不含路径变量和通配符
      * @param url URL
-     * @return 正则表达式
+     * @return 是否为字面量URL
      */
-    private String convertToRegex(String url) {
-        // 将{paramName}转换为正则表达式组
-        return url.replaceAll("\\{([^}]+)\\}", "([^/]+)");
+    private boolean isLiteral(String url) {
+        return url.indexOf('{') < 0 && url.indexOf('*') < 0;
     }
     
     /**
@@ -126,12 +145,22 @@ public class HandlerMapping {
         private final Object beanInstance;
         private final Method method;
         private final RequestMapping requestMapping;
+        private final RequestMappingInfo mappingInfo;
+        // 注册时编译的调用器
+        private final HandlerInvoker invoker;
+        // 方法或类是否带有ResponseBody注解
+        private final boolean responseBody;
         
-        public HandlerMethod(String beanName, Object beanInstance, Method method, RequestMapping requestMapping) {
+        public HandlerMethod(String beanName, Object beanInstance, Method method, RequestMapping requestMapping,
+                             RequestMappingInfo mappingInfo) {
             this.beanName = beanName;
             this.beanInstance = beanInstance;
             this.method = method;
             this.requestMapping = requestMapping;
+            this.mappingInfo = mappingInfo;
+            this.invoker = new HandlerInvoker(beanInstance, method);
+            this.responseBody = method.isAnnotationPresent(ResponseBody.class)
+                    || beanInstance.getClass().isAnnotationPresent(ResponseBody.class);
         }
         
         public String getBeanName() {
@@ -150,9 +179,73 @@ public class HandlerMapping {
             return requestMapping;
         }
         
+        public RequestMappingInfo getMappingInfo() {
+            return mappingInfo;
+        }
+        
+        public HandlerInvoker getInvoker() {
+            return invoker;
+        }
+        
+        public boolean isResponseBody() {
+            return responseBody;
+        }
+        
         @Override
         public String toString() {
             return "HandlerMethod{beanName='" + beanName + "', method=" + method + "}";
         }
     }
+    
+    /**
+     * 处理方法查找结果：选中的处理方法和路径变量，或者URL匹配但请求条件不满足时的错误状态码
+     */
+    public static class HandlerLookup {
+        private final HandlerMethod handlerMethod;
+        private final Map<String, String> pathVariables;
+        private final String producedType;
+        private final int statusCode;
+        private final String allow;
+        
+        public HandlerLookup(HandlerMethod handlerMethod, Map<String, String> pathVariables, String producedType,
+                             int statusCode, String allow) {
+            this.handlerMethod = handlerMethod;
+            this.pathVariables = pathVariables;
+            this.producedType = producedType;
+            this.statusCode = statusCode;
+            this.allow = allow;
+        }
+        
+        /**
+         * 获取选中的处理方法，条件不满足时为null
+         */
+        public HandlerMethod getHandlerMethod() {
+            return handlerMethod;
+        }
+        
+        public Map<String, String> getPathVariables() {
+            return pathVariables;
+        }
+        
+        /**
+         * 获取按produces条件和Accept请求头协商出的响应内容类型，处理方法没有声明produces时为null
+         */
+        public String getProducedType() {
+            return producedType;
+        }
+        
+        /**
+         * 获取状态码：200表示找到处理方法，否则为405、415、400、404或406
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+        
+        /**
+         * 获取405响应的Allow头的值
+         */
+        public String getAllow() {
+            return allow;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,283 @@
+package spring.mvc;
+
+import http.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 同一URL模式下的全部处理器方法，按请求条件选出处理请求的方法
+ * 注册时把组内出现的params、headers、consumes和produces条件去重编号，每个处理器方法的条件预先编码为位集；
+ * 请求到来时每个不同的条件只求值一次得到请求满足的位集，再与各处理器方法的位集按位比较。
+ * 处理器方法按条件的具体程度排序，条件越多越优先，相同时按方法签名排序，结果与注册顺序无关
+ */
+public class HandlerMethodGroup {
+    // 组内去重后的条件，下标即位集中的位置，每类最多64个
+    private final List<String> paramExpressions = new ArrayList<>();
+    private final List<String> headerExpressions = new ArrayList<>();
+    private final List<String> consumableTypes = new ArrayList<>();
+    private final List<String> producibleTypes = new ArrayList<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final String pattern;
+    // 组内所有处理器方法允许的请求方法，用于405响应的Allow头；有处理器方法不限制请求方法时为0
+    private int allowedMethods = 0;
+    private boolean anyMethod = false;
+
+    /**
+     * @param pattern 组对应的URL模式
+     */
+    public HandlerMethodGroup(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * 添加处理器方法，请求条件完全相同的处理器方法视为冲突
+     * @param handlerMethod 处理器方法
+     */
+    public void add(HandlerMapping.HandlerMethod handlerMethod) {
+        RequestMappingInfo info = handlerMethod.getMappingInfo();
+        for (Entry entry : entries) {
+            if (entry.handlerMethod.getMappingInfo().toString().equals(info.toString())) {
+                throw new IllegalStateException("URL映射冲突: " + pattern + " " + info + " 已映射到 "
+                        + entry.handlerMethod + "，不能再映射到 " + handlerMethod);
+            }
+        }
+        Entry entry = new Entry(handlerMethod);
+        entry.paramMask = indexAll(paramExpressions, info.getParams());
+        entry.headerMask = indexAll(headerExpressions, info.getHeaders());
+        entry.consumesMask = indexAll(consumableTypes, info.getConsumes());
+        entry.producesMask = indexAll(producibleTypes, info.getProduces());
+        entries.add(entry);
+        entries.sort(Comparator.comparingInt((Entry e) -> -e.handlerMethod.getMappingInfo().getSpecificity())
+                .thenComparing(e -> e.handlerMethod.getMethod().toGenericString()));
+        if (info.getMethodMask() == 0) {
+            anyMethod = true;
+        }
+        allowedMethods |= info.getMethodMask();
+    }
+
+    private static long indexAll(List<String> table, List<String> values) {
+        long mask = 0;
+        for (String value : values) {
+            int index = table.indexOf(value);
+            if (index < 0) {
+                if (table.size() == Long.SIZE) {
+                    throw new IllegalStateException("同一URL模式下的不同条件超过" + Long.SIZE + "个");
+                }
+                table.add(value);
+                index = table.size() - 1;
+            }
+            mask |= 1L << index;
+        }
+        return mask;
+    }
+
+    /**
+     * 按请求条件选择处理器方法
+     * 依次检查请求方法、请求内容类型、请求参数、请求头和响应内容类型，所有处理器方法都不满足时
+     * 按走得最远的一步确定状态码：405、415、400、404或406
+     * @param request 请求
+     * @param pathVariables 路由匹配时提取的路径变量
+     * @return 选择结果
+     */
+    public HandlerMapping.HandlerLookup select(HttpRequest request, Map<String, String> pathVariables) {
+        int methodBit = RequestMappingInfo.methodBit(request.getMethod());
+        long consumable = -1;
+        long params = -1;
+        long headers = -1;
+        long producible = -1;
+        String[] acceptRanges = null;
+        int furthest = 0;
+        for (Entry entry : entries) {
+            if (!entry.handlerMethod.getMappingInfo().matchesMethod(methodBit)) {
+                continue;
+            }
+            furthest = Math.max(furthest, 1);
+            if (entry.consumesMask != 0) {
+                if (consumable == -1) {
+                    consumable = evaluateConsumes(request);
+                }
+                if ((entry.consumesMask & consumable) == 0) {
+                    continue;
+                }
+            }
+            furthest = Math.max(furthest, 2);
+            if (entry.paramMask != 0) {
+                if (params == -1) {
+                    params = evaluateExpressions(paramExpressions, request, true);
+                }
+                if ((entry.paramMask & ~params) != 0) {
+                    continue;
+                }
+            }
+            furthest = Math.max(furthest, 3);
+            if (entry.headerMask != 0) {
+                if (headers == -1) {
+                    headers = evaluateExpressions(headerExpressions, request, false);
+                }
+                if ((entry.headerMask & ~headers) != 0) {
+                    continue;
+                }
+            }
+            furthest = Math.max(furthest, 4);
+            String producedType = null;
+            if (entry.producesMask != 0) {
+                if (producible == -1) {
+                    acceptRanges = parseAccept(request.getHeader("Accept"));
+                    producible = evaluateProduces(acceptRanges);
+                }
+                if ((entry.producesMask & producible) == 0) {
+                    continue;
+                }
+                producedType = firstProducible(entry.handlerMethod.getMappingInfo().getProduces(), acceptRanges);
+            }
+            return new HandlerMapping.HandlerLookup(entry.handlerMethod, pathVariables, producedType, 200, null);
+        }
+        switch (furthest) {
+            case 0:
+                return new HandlerMapping.HandlerLookup(null, pathVariables, null, 405,
+                        anyMethod ? null : RequestMappingInfo.toAllowHeader(allowedMethods));
+            case 1:
+                return new HandlerMapping.HandlerLookup(null, pathVariables, null, 415, null);
+            case 2:
+                return new HandlerMapping.HandlerLookup(null, pathVariables, null, 400, null);
+            case 3:
+                return new HandlerMapping.HandlerLookup(null, pathVariables, null, 404, null);
+            default:
+                return new HandlerMapping.HandlerLookup(null, pathVariables, null, 406, null);
+        }
+    }
+
+    /**
+     * 请求的Content-Type满足哪些consumes条件，没有Content-Type时按application/octet-stream处理
+     */
+    private long evaluateConsumes(HttpRequest request) {
+        String contentType = RequestMappingInfo.normalizeMediaType(request.getHeader("Content-Type"));
+        if (contentType.isEmpty()) {
+            contentType = "application/octet-stream";
+        }
+        long mask = 0;
+        for (int i = 0; i < consumableTypes.size(); i++) {
+            if (RequestMappingInfo.includes(consumableTypes.get(i), contentType)) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 请求满足哪些params或headers条件，条件的格式为name、!name、name=value或name!=value
+     */
+    private static long evaluateExpressions(List<String> expressions, HttpRequest request, boolean parameters) {
+        Map<String, String> requestParameters = parameters ? request.getParameters() : null;
+        long mask = 0;
+        for (int i = 0; i < expressions.size(); i++) {
+            String expression = expressions.get(i);
+            boolean negated = false;
+            String name;
+            String expected = null;
+            int equals = expression.indexOf('=');
+            if (equals > 0) {
+                negated = expression.charAt(equals - 1) == '!';
+                name = expression.substring(0, negated ? equals - 1 : equals).trim();
+                expected = expression.substring(equals + 1).trim();
+            } else if (expression.startsWith("!")) {
+                negated = true;
+                name = expression.substring(1).trim();
+            } else {
+                name = expression;
+            }
+            String actual = parameters ? (requestParameters != null ? requestParameters.get(name) : null)
+                    : request.getHeader(name);
+            boolean matched = expected == null ? actual != null : expected.equals(actual);
+            if (matched != negated) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 解析Accept请求头，去掉q=0的媒体类型范围，没有Accept时接受任何类型
+     */
+    private static String[] parseAccept(String accept) {
+        if (accept == null || accept.trim().isEmpty()) {
+            return new String[]{"*/*"};
+        }
+        List<String> ranges = new ArrayList<>();
+        for (String part : accept.split(",")) {
+            String range = RequestMappingInfo.normalizeMediaType(part);
+            if (!range.isEmpty() && !isZeroQuality(part)) {
+                ranges.add(range);
+            }
+        }
+        return ranges.toArray(new String[0]);
+    }
+
+    private static boolean isZeroQuality(String mediaRange) {
+        for (String parameter : mediaRange.split(";")) {
+            String value = parameter.trim();
+            if (value.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(value.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long evaluateProduces(String[] acceptRanges) {
+        long mask = 0;
+        for (int i = 0; i < producibleTypes.size(); i++) {
+            if (firstProducible(Collections.singletonList(producibleTypes.get(i)), acceptRanges) != null) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 按处理器方法声明的顺序返回第一个客户端接受的响应内容类型
+     */
+    private static String firstProducible(List<String> produces, String[] acceptRanges) {
+        for (String type : produces) {
+            for (String range : acceptRanges) {
+                if (RequestMappingInfo.includes(range, type) || RequestMappingInfo.includes(type, range)) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 获取组内优先级最高的处理器方法，不考虑请求条件
+     */
+    public HandlerMapping.HandlerMethod getFirst() {
+        return entries.isEmpty() ? null : entries.get(0).handlerMethod;
+    }
+
+    /**
+     * 处理器方法及其条件位集
+     */
+    private static final class Entry {
+        private final HandlerMapping.HandlerMethod handlerMethod;
+        private long paramMask;
+        private long headerMask;
+        private long consumesMask;
+        private long producesMask;
+
+        private Entry(HandlerMapping.HandlerMethod handlerMethod) {
+            this.handlerMethod = handlerMethod;
+        }
+    }
+}
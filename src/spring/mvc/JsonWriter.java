@@ -0,0 +1,392 @@
+package spring.mvc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流式JSON序列化器，把@ResponseBody的返回值按UTF-8直接写入响应的字节流，不生成中间的String
+ * 支持Map、集合、数组、record和POJO；POJO的属性来自public的getter和public字段，record的属性来自组件。
+ * 每个类型的属性访问器在第一次序列化时通过MethodHandle生成并缓存，之后直接调用
+ */
+public class JsonWriter {
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    // 嵌套层数上限，超过时认为对象图存在循环引用
+    private static final int MAX_DEPTH = 64;
+
+    // 按类型缓存的属性访问器
+    private final Map<Class<?>, BeanProperty[]> properties = new ConcurrentHashMap<>();
+
+    /**
+     * 把对象序列化为JSON写入输出流
+     * @param value 要序列化的对象
+     * @param out 输出流，通常是响应的输出流
+     */
+    public void write(Object value, OutputStream out) throws IOException {
+        writeValue(value, out, 0);
+    }
+
+    private void writeValue(Object value, OutputStream out, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting is deeper than " + MAX_DEPTH + ", the object graph may contain a cycle");
+        }
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof CharSequence) {
+            writeString((CharSequence) value, out);
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue(), out);
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                // JSON没有NaN和无穷大
+                out.write(NULL);
+            } else {
+                writeAscii(value.toString(), out);
+            }
+        } else if (value instanceof Number) {
+            // BigInteger、BigDecimal等按十进制表示原样输出
+            writeAscii(value.toString(), out);
+        } else if (value instanceof Character) {
+            writeString(String.valueOf((char) (Character) value), out);
+        } else if (value instanceof Enum) {
+            writeString(((Enum<?>) value).name(), out);
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value, out, depth);
+        } else if (value instanceof Iterable) {
+            writeIterable((Iterable<?>) value, out, depth);
+        } else if (value.getClass().isArray()) {
+            writeArray(value, out, depth);
+        } else {
+            BeanProperty[] beanProperties = getProperties(value.getClass());
+            if (beanProperties == null) {
+                // 没有属性的JDK类型，如日期和UUID，按toString输出为字符串
+                writeString(value.toString(), out);
+            } else {
+                writeBean(value, beanProperties, out, depth);
+            }
+        }
+    }
+
+    private void writeMap(Map<?, ?> map, OutputStream out, int depth) throws IOException {
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            Object key = entry.getKey();
+            writeString(key instanceof CharSequence ? (CharSequence) key : String.valueOf(key), out);
+            out.write(':');
+            writeValue(entry.getValue(), out, depth + 1);
+        }
+        out.write('}');
+    }
+
+    private void writeIterable(Iterable<?> iterable, OutputStream out, int depth) throws IOException {
+        out.write('[');
+        Iterator<?> iterator = iterable.iterator();
+        boolean first = true;
+        while (iterator.hasNext()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            writeValue(iterator.next(), out, depth + 1);
+        }
+        out.write(']');
+    }
+
+    private void writeArray(Object array, OutputStream out, int depth) throws IOException {
+        out.write('[');
+        if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeLong(values[i], out);
+            }
+        } else if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeLong(values[i], out);
+            }
+        } else if (array instanceof Object[]) {
+            Object[] values = (Object[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeValue(values[i], out, depth + 1);
+            }
+        } else {
+            // 其余基本类型数组
+            int length = Array.getLength(array);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeValue(Array.get(array, i), out, depth + 1);
+            }
+        }
+        out.write(']');
+    }
+
+    private void writeBean(Object bean, BeanProperty[] beanProperties, OutputStream out, int depth) throws IOException {
+        out.write('{');
+        for (int i = 0; i < beanProperties.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            BeanProperty property = beanProperties[i];
+            out.write(property.encodedName);
+            Object value;
+            try {
+                value = property.accessor.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("读取属性失败: " + bean.getClass().getName() + "." + property.name, t);
+            }
+            writeValue(value, out, depth + 1);
+        }
+        out.write('}');
+    }
+
+    /**
+     * 写出带引号的JSON字符串，按UTF-8编码并转义引号、反斜杠和控制字符
+     */
+    private static void writeString(CharSequence text, OutputStream out) throws IOException {
+        out.write('"');
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                switch (c) {
+                    case '\n':
+                        out.write('\\');
+                        out.write('n');
+                        break;
+                    case '\r':
+                        out.write('\\');
+                        out.write('r');
+                        break;
+                    case '\t':
+                        out.write('\\');
+                        out.write('t');
+                        break;
+                    default:
+                        // 其余控制字符和JavaScript中的行分隔符写为四位十六进制的转义序列
+                        out.write('\\');
+                        out.write('u');
+                        out.write(HEX_DIGITS[(c >> 12) & 0xf]);
+                        out.write(HEX_DIGITS[(c >> 8) & 0xf]);
+                        out.write(HEX_DIGITS[(c >> 4) & 0xf]);
+                        out.write(HEX_DIGITS[c & 0xf]);
+                }
+            } else if (c < 0x80) {
+                out.write(c);
+            } else if (c < 0x800) {
+                out.write(0xc0 | (c >> 6));
+                out.write(0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out.write(0xf0 | (codePoint >> 18));
+                out.write(0x80 | ((codePoint >> 12) & 0x3f));
+                out.write(0x80 | ((codePoint >> 6) & 0x3f));
+                out.write(0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // 不完整的代理对写为替换字符U+FFFD
+                out.write(0xef);
+                out.write(0xbf);
+                out.write(0xbd);
+            } else {
+                out.write(0xe0 | (c >> 12));
+                out.write(0x80 | ((c >> 6) & 0x3f));
+                out.write(0x80 | (c & 0x3f));
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * 逐位写出整数的十进制表示
+     */
+    private static void writeLong(long value, OutputStream out) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808", out);
+            return;
+        }
+        if (value < 0) {
+            out.write('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            out.write('0' + (int) (value / divisor % 10));
+            divisor /= 10;
+        }
+    }
+
+    private static void writeAscii(String text, OutputStream out) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            out.write(text.charAt(i));
+        }
+    }
+
+    /**
+     * 获取类型的属性访问器，第一次访问时生成并缓存
+     * @return 属性访问器，JDK中没有属性的类型返回null
+     */
+    private BeanProperty[] getProperties(Class<?> type) {
+        if (isJdkType(type)) {
+            return null;
+        }
+        BeanProperty[] cached = properties.get(type);
+        if (cached == null) {
+            // 并发时可能重复生成，结果相同，不需要加锁
+            cached = createProperties(type);
+            properties.put(type, cached);
+        }
+        return cached;
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.");
+    }
+
+    /**
+     * 生成类型的属性访问器：record按组件顺序，其他类型按属性名排序，访问器的签名统一为(Object)Object
+     */
+    private static BeanProperty[] createProperties(Class<?> type) {
+        List<BeanProperty> result = new ArrayList<>();
+        try {
+            Method[] accessors = recordAccessors(type);
+            if (accessors != null) {
+                for (Method accessor : accessors) {
+                    result.add(new BeanProperty(accessor.getName(), unreflect(accessor)));
+                }
+                return result.toArray(new BeanProperty[0]);
+            }
+            Map<String, MethodHandle> sorted = new TreeMap<>();
+            for (Method method : type.getMethods()) {
+                String name = propertyName(method);
+                if (name != null) {
+                    sorted.put(name, unreflect(method));
+                }
+            }
+            for (Field field : type.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !sorted.containsKey(field.getName())) {
+                    sorted.put(field.getName(), MethodHandles.publicLookup().unreflectGetter(field)
+                            .asType(MethodType.methodType(Object.class, Object.class)));
+                }
+            }
+            for (Map.Entry<String, MethodHandle> entry : sorted.entrySet()) {
+                result.add(new BeanProperty(entry.getKey(), entry.getValue()));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法生成属性访问器: " + type.getName(), e);
+        }
+        return result.toArray(new BeanProperty[0]);
+    }
+
+    /**
+     * 根据getter方法名得到属性名，如getUserName得到userName，isActive得到active，不是getter时返回null
+     */
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+                || method.getReturnType() == void.class || method.getDeclaringClass() == Object.class) {
+            return null;
+        }
+        String name = method.getName();
+        String property;
+        if (name.startsWith("get") && name.length() > 3) {
+            property = name.substring(3);
+        } else if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+            property = name.substring(2);
+        } else {
+            return null;
+        }
+        // 连续大写开头的属性名保持原样，如getURL得到URL
+        if (property.length() > 1 && Character.isUpperCase(property.charAt(1))) {
+            return property;
+        }
+        return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+    }
+
+    /**
+     * 获取record组件的访问方法，不是record或运行在不支持record的JDK上时返回null
+     */
+    private static Method[] recordAccessors(Class<?> type) throws ReflectiveOperationException {
+        Method isRecord;
+        try {
+            isRecord = Class.class.getMethod("isRecord");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        if (!(Boolean) isRecord.invoke(type)) {
+            return null;
+        }
+        Object[] components = (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+        Method[] accessors = new Method[components.length];
+        for (int i = 0; i < components.length; i++) {
+            accessors[i] = (Method) components[i].getClass().getMethod("getAccessor").invoke(components[i]);
+        }
+        return accessors;
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        // 非public类的public方法需要取消访问检查
+        try {
+            method.setAccessible(true);
+        } catch (RuntimeException e) {
+            // 其他模块中的类不允许取消访问检查，按public方法访问
+        }
+        return MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+    }
+
+    /**
+     * 属性名（预先编码为"name":的UTF-8字节）和读取属性的MethodHandle
+     */
+    private static final class BeanProperty {
+        private final String name;
+        private final byte[] encodedName;
+        private final MethodHandle accessor;
+
+        private BeanProperty(String name, MethodHandle accessor) {
+            this.name = name;
+            this.accessor = accessor;
+            this.encodedName = ("\"" + name + "\":").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package spring.mvc;
+
+import spring.mvc.annotation.RequestMapping;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 处理器方法的请求条件：请求方法、请求参数、请求头、请求内容类型和响应内容类型
+ * 由类和方法上的@RequestMapping合并而成：请求方法以方法上的为准，未声明时使用类上的；
+ * params和headers取两者的并集；consumes和produces以方法上的为准，未声明时使用类上的
+ */
+public class RequestMappingInfo {
+    // 支持的请求方法，下标即为请求方法位集中的位置
+    private static final String[] HTTP_METHODS = {"GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS", "TRACE"};
+    private static final int GET = methodBit("GET");
+    private static final int HEAD = methodBit("HEAD");
+
+    private final int methodMask;
+    private final List<String> params;
+    private final List<String> headers;
+    private final List<String> consumes;
+    private final List<String> produces;
+
+    /**
+     * @param classMapping 类上的@RequestMapping，可以为null
+     * @param methodMapping 方法上的@RequestMapping
+     */
+    public RequestMappingInfo(RequestMapping classMapping, RequestMapping methodMapping) {
+        String[] methods = methodMapping.method().length > 0 || classMapping == null
+                ? methodMapping.method() : classMapping.method();
+        int mask = 0;
+        for (String method : methods) {
+            int bit = methodBit(method.trim().toUpperCase(Locale.ROOT));
+            if (bit == 0) {
+                throw new IllegalArgumentException("不支持的请求方法: " + method);
+            }
+            mask |= bit;
+        }
+        this.methodMask = mask;
+        this.params = union(classMapping != null ? classMapping.params() : new String[0], methodMapping.params());
+        this.headers = union(classMapping != null ? classMapping.headers() : new String[0], methodMapping.headers());
+        this.consumes = mediaTypes(methodMapping.consumes().length > 0 || classMapping == null
+                ? methodMapping.consumes() : classMapping.consumes());
+        this.produces = mediaTypes(methodMapping.produces().length > 0 || classMapping == null
+                ? methodMapping.produces() : classMapping.produces());
+    }
+
+    private static List<String> union(String[] first, String[] second) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String expression : first) {
+            result.add(expression.trim());
+        }
+        for (String expression : second) {
+            result.add(expression.trim());
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static List<String> mediaTypes(String[] types) {
+        List<String> result = new ArrayList<>();
+        for (String type : types) {
+            String mediaType = normalizeMediaType(type);
+            if (!mediaType.isEmpty() && !result.contains(mediaType)) {
+                result.add(mediaType);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取请求方法在位集中对应的位，不支持的请求方法返回0
+     */
+    public static int methodBit(String method) {
+        for (int i = 0; i < HTTP_METHODS.length; i++) {
+            if (HTTP_METHODS[i].equals(method)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 判断请求方法是否满足条件，允许GET的处理器方法同样处理HEAD请求
+     * @param requestMethodBit 请求方法对应的位
+     */
+    public boolean matchesMethod(int requestMethodBit) {
+        if (methodMask == 0 || (methodMask & requestMethodBit) != 0) {
+            return true;
+        }
+        return requestMethodBit == HEAD && (methodMask & GET) != 0;
+    }
+
+    /**
+     * 把请求方法位集转换为Allow响应头的值
+     */
+    public static String toAllowHeader(int mask) {
+        if ((mask & GET) != 0) {
+            mask |= HEAD;
+        }
+        StringBuilder allow = new StringBuilder();
+        for (int i = 0; i < HTTP_METHODS.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                if (allow.length() > 0) {
+                    allow.append(", ");
+                }
+                allow.append(HTTP_METHODS[i]);
+            }
+        }
+        return allow.toString();
+    }
+
+    /**
+     * 去掉媒体类型的参数并转为小写，如"application/json;charset=UTF-8"转为"application/json"
+     */
+    public static String normalizeMediaType(String type) {
+        if (type == null) {
+            return "";
+        }
+        int semicolon = type.indexOf(';');
+        return (semicolon >= 0 ? type.substring(0, semicolon) : type).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 判断媒体类型范围是否包含指定的媒体类型，支持全通配和text/*形式的通配
+     */
+    public static boolean includes(String range, String mediaType) {
+        if (range.equals("*/*") || range.equals("*") || range.equals(mediaType)) {
+            return true;
+        }
+        return range.endsWith("/*") && mediaType.startsWith(range.substring(0, range.length() - 1));
+    }
+
+    /**
+     * 条件的具体程度，用于同一URL模式下多个处理器方法的排序，声明的条件越多越优先
+     */
+    public int getSpecificity() {
+        return (methodMask != 0 ? 1 : 0) + params.size() + headers.size()
+                + (consumes.isEmpty() ? 0 : 1) + (produces.isEmpty() ? 0 : 1);
+    }
+
+    public int getMethodMask() {
+        return methodMask;
+    }
+
+    public List<String> getParams() {
+        return params;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public List<String> getConsumes() {
+        return consumes;
+    }
+
+    public List<String> getProduces() {
+        return produces;
+    }
+
+    @Override
+    public String toString() {
+        return "{methods=" + (methodMask == 0 ? "*" : toAllowHeader(methodMask)) + ", params=" + params
+                + ", headers=" + headers + ", consumes=" + consumes + ", produces=" + produces + "}";
+    }
+}
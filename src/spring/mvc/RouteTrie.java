@@ -0,0 +1,239 @@
+package spring.mvc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按路径段组织的路由树，支持五种路径段：字面量、带前后缀的变量（如{name}.json、v{version}）、
+ * {var}（匹配一段并提取为路径变量）、*（匹配一段）、**（匹配零或多段）
+ * 查找时沿请求路径逐段向下，每一层按 字面量 > 带前后缀的变量 > {var} > * > ** 的顺序尝试，失败时回溯，
+ * 因此在第一个不同的路径段上更具体的模式优先，结果与注册顺序无关。路径变量在匹配过程中一次提取
+ * @param <T> 处理器类型
+ */
+public class RouteTrie<T> {
+    private final Node<T> root = new Node<>();
+
+    /**
+     * 注册路径模式
+     * @param pattern 路径模式，如/user/{id}/orders/**
+     * @param handler 处理器
+     * @return 同一位置上之前注册的处理器，没有时返回null
+     */
+    public T add(String pattern, T handler) {
+        Node<T> node = root;
+        List<String> variableNames = new ArrayList<>();
+        for (String segment : split(pattern)) {
+            if (segment.equals("**")) {
+                if (node.doubleWildcard == null) {
+                    node.doubleWildcard = new Node<>();
+                }
+                node = node.doubleWildcard;
+            } else if (segment.equals("*")) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node<>();
+                }
+                node = node.wildcard;
+            } else if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0) {
+                int open = segment.indexOf('{');
+                int close = segment.indexOf('}');
+                if (open < 0 || close < open + 2 || segment.indexOf('{', open + 1) >= 0
+                        || segment.indexOf('}', close + 1) >= 0 || segment.indexOf('*') >= 0) {
+                    throw new IllegalArgumentException("无效的路径段: " + segment + "，每段最多包含一个{var}，且不能与通配符混用: " + pattern);
+                }
+                variableNames.add(segment.substring(open + 1, close));
+                if (open == 0 && close == segment.length() - 1) {
+                    if (node.variable == null) {
+                        node.variable = new Node<>();
+                    }
+                    node = node.variable;
+                } else {
+                    node = node.partial(segment.substring(0, open), segment.substring(close + 1));
+                }
+            } else {
+                if (node.literals == null) {
+                    node.literals = new HashMap<>();
+                }
+                node = node.literals.computeIfAbsent(segment, k -> new Node<>());
+            }
+        }
+        T previous = node.handler;
+        node.handler = handler;
+        node.pattern = pattern;
+        node.variableNames = variableNames.toArray(new String[0]);
+        return previous;
+    }
+
+    /**
+     * 查找与请求路径匹配的处理器
+     * @param path 请求路径
+     * @return 匹配结果，没有匹配的模式时返回null
+     */
+    public Match<T> match(String path) {
+        String[] segments = split(path);
+        String[] values = new String[segments.length];
+        Node<T> leaf = find(root, segments, 0, values, 0);
+        if (leaf == null) {
+            return null;
+        }
+        Map<String, String> pathVariables;
+        if (leaf.variableNames.length == 0) {
+            pathVariables = Collections.emptyMap();
+        } else {
+            pathVariables = new LinkedHashMap<>();
+            for (int i = 0; i < leaf.variableNames.length; i++) {
+                pathVariables.put(leaf.variableNames[i], values[i]);
+            }
+        }
+        return new Match<>(leaf.handler, leaf.pattern, pathVariables);
+    }
+
+    /**
+     * 深度优先查找，values按出现顺序记录{var}段匹配到的值
+     */
+    private Node<T> find(Node<T> node, String[] segments, int index, String[] values, int valueCount) {
+        if (index == segments.length) {
+            if (node.handler != null) {
+                return node;
+            }
+            // 结尾的**可以匹配零段
+            return node.doubleWildcard != null ? find(node.doubleWildcard, segments, index, values, valueCount) : null;
+        }
+        String segment = segments[index];
+        Node<T> leaf;
+        if (node.literals != null) {
+            Node<T> child = node.literals.get(segment);
+            if (child != null && (leaf = find(child, segments, index + 1, values, valueCount)) != null) {
+                return leaf;
+            }
+        }
+        // {var}和*只匹配非空的路径段
+        if (!segment.isEmpty()) {
+            if (node.partials != null) {
+                // 前后缀越长越具体，变量部分同样不能为空
+                for (Node<T> partial : node.partials) {
+                    if (segment.length() > partial.prefix.length() + partial.suffix.length()
+                            && segment.startsWith(partial.prefix) && segment.endsWith(partial.suffix)) {
+                        values[valueCount] = segment.substring(partial.prefix.length(), segment.length() - partial.suffix.length());
+                        if ((leaf = find(partial, segments, index + 1, values, valueCount + 1)) != null) {
+                            return leaf;
+                        }
+                    }
+                }
+            }
+            if (node.variable != null) {
+                values[valueCount] = segment;
+                if ((leaf = find(node.variable, segments, index + 1, values, valueCount + 1)) != null) {
+                    return leaf;
+                }
+            }
+            if (node.wildcard != null && (leaf = find(node.wildcard, segments, index + 1, values, valueCount)) != null) {
+                return leaf;
+            }
+        }
+        if (node.doubleWildcard != null) {
+            // **优先匹配尽量少的路径段
+            for (int next = index; next <= segments.length; next++) {
+                if ((leaf = find(node.doubleWildcard, segments, next, values, valueCount)) != null) {
+                    return leaf;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按/拆分路径，忽略开头的/，根路径没有路径段
+     */
+    private static String[] split(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        if (start >= path.length()) {
+            return new String[0];
+        }
+        int count = 1;
+        for (int i = start; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                count++;
+            }
+        }
+        String[] segments = new String[count];
+        int index = 0;
+        for (int i = start; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                segments[index++] = path.substring(start, i);
+                start = i + 1;
+            }
+        }
+        segments[index] = path.substring(start);
+        return segments;
+    }
+
+    /**
+     * 路由树节点，子节点按路径段类型分别存放
+     */
+    private static final class Node<T> {
+        private Map<String, Node<T>> literals;
+        // 带前后缀的变量，按前后缀总长度从长到短排列
+        private List<Node<T>> partials;
+        private String prefix;
+        private String suffix;
+        private Node<T> variable;
+        private Node<T> wildcard;
+        private Node<T> doubleWildcard;
+        private T handler;
+        private String pattern;
+        private String[] variableNames;
+
+        /**
+         * 获取或创建前后缀相同的变量子节点
+         */
+        private Node<T> partial(String prefix, String suffix) {
+            if (partials == null) {
+                partials = new ArrayList<>();
+            }
+            for (Node<T> partial : partials) {
+                if (partial.prefix.equals(prefix) && partial.suffix.equals(suffix)) {
+                    return partial;
+                }
+            }
+            Node<T> partial = new Node<>();
+            partial.prefix = prefix;
+            partial.suffix = suffix;
+            partials.add(partial);
+            partials.sort(Comparator.comparingInt((Node<T> n) -> -(n.prefix.length() + n.suffix.length()))
+                    .thenComparing(n -> n.prefix + "{}" + n.suffix));
+            return partial;
+        }
+    }
+
+    /**
+     * 匹配结果：处理器、匹配的模式和提取出的路径变量
+     */
+    public static class Match<T> {
+        private final T handler;
+        private final String pattern;
+        private final Map<String, String> pathVariables;
+
+        public Match(T handler, String pattern, Map<String, String> pathVariables) {
+            this.handler = handler;
+            this.pattern = pattern;
+            this.pathVariables = pathVariables;
+        }
+
+        public T getHandler() {
+            return handler;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public Map<String, String> getPathVariables() {
+            return pathVariables;
+        }
+    }
+}